@@ -1,28 +1,41 @@
 package com.kingdomcraft.invviewer;
 
 import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
+import java.util.*;
 
 public class AdvancedInvViewer extends JavaPlugin {
     
-    private final Map<UUID, InventorySession> activeSessions = new HashMap<>();
+    // One shared session per watched player, and the session each viewer has open
+    private final Map<UUID, InventorySession> sessionsByTarget = new HashMap<>();
+    private final Map<UUID, InventorySession> sessionsByViewer = new HashMap<>();
+    // Snapshot views of offline players, by viewer
+    private final Map<UUID, OfflineInventoryView> offlineViews = new HashMap<>();
+    // Slot change history of watched players (kept until they log out), and open timeline pages by viewer
+    private final Map<UUID, InventoryTimeline> timelines = new HashMap<>();
+    private final Map<UUID, TimelineView> timelineViews = new HashMap<>();
+    private OfflineInventoryStore offlineStore;
     private InventoryUpdateTask updateTask;
     
     @Override
     public void onEnable() {
+        saveDefaultConfig();
+        
         // Register event listeners
         getServer().getPluginManager().registerEvents(new InventoryListener(this), this);
+        getServer().getPluginManager().registerEvents(new TargetListener(this), this);
+        
+        offlineStore = new OfflineInventoryStore(this, Math.max(1, getConfig().getInt("offline.cache-size", 16)));
+        getServer().getPluginManager().registerEvents(offlineStore, this);
         
-        // Start update task for real-time syncing
+        // Refresh sessions whose target changed (checked every tick, idle sessions do nothing)
         updateTask = new InventoryUpdateTask(this);
-        updateTask.runTaskTimer(this, 0L, 2L); // Update every 2 ticks (10 times per second)
+        updateTask.runTaskTimer(this, 1L, 1L);
         
         getLogger().info("AdvancedInvViewer has been enabled!");
         getLogger().info("Real-time inventory viewing is now active!");
@@ -31,13 +44,26 @@ public class AdvancedInvViewer extends JavaPlugin {
     @Override
     public void onDisable() {
         // Close all active sessions
-        activeSessions.values().forEach(InventorySession::close);
-        activeSessions.clear();
+        new ArrayList<>(sessionsByTarget.values()).forEach(InventorySession::close);
+        sessionsByTarget.clear();
+        sessionsByViewer.clear();
+        for (UUID viewerId : new ArrayList<>(offlineViews.keySet())) {
+            closeOfflineView(Bukkit.getPlayer(viewerId));
+        }
+        for (TimelineView view : new ArrayList<>(timelineViews.values())) {
+            closeTimelineView(view.getViewer());
+        }
+        timelines.clear();
         
         if (updateTask != null) {
             updateTask.cancel();
         }
         
+        // Let queued offline edits finish
+        if (offlineStore != null) {
+            offlineStore.shutdown();
+        }
+        
         getLogger().info("AdvancedInvViewer has been disabled!");
     }
     
@@ -56,9 +82,15 @@ public class AdvancedInvViewer extends JavaPlugin {
                 return true;
             }
             
+            // Check permissions
+            if (!viewer.hasPermission("invviewer.use")) {
+                viewer.sendMessage("§cYou don't have permission to use this command!");
+                return true;
+            }
+            
             Player target = Bukkit.getPlayer(args[0]);
             if (target == null) {
-                viewer.sendMessage("§cPlayer not found!");
+                openOfflineView(viewer, args[0]);
                 return true;
             }
             
@@ -67,19 +99,8 @@ public class AdvancedInvViewer extends JavaPlugin {
                 return true;
             }
             
-            // Check permissions
-            if (!viewer.hasPermission("invviewer.use")) {
-                viewer.sendMessage("§cYou don't have permission to use this command!");
-                return true;
-            }
-            
-            // Close existing session if any
-            closeSession(viewer);
-            
-            // Create new session
-            InventorySession session = new InventorySession(viewer, target, this);
-            activeSessions.put(viewer.getUniqueId(), session);
-            session.open();
+            closeOfflineView(viewer);
+            openSession(viewer, target);
             
             viewer.sendMessage("§aNow viewing §e" + target.getName() + "§a's inventory in real-time!");
             
@@ -89,14 +110,183 @@ public class AdvancedInvViewer extends JavaPlugin {
         return false;
     }
     
+    /**
+     * Load an offline player's saved inventory in the background and show it to the viewer.
+     */
+    private void openOfflineView(Player viewer, String name) {
+        OfflinePlayer offline = Bukkit.getOfflinePlayerIfCached(name);
+        if (offline == null || !offline.hasPlayedBefore()) {
+            viewer.sendMessage("§cPlayer not found!");
+            return;
+        }
+        
+        String targetName = offline.getName() != null ? offline.getName() : name;
+        boolean editable = getConfig().getBoolean("offline.allow-edits", false) && viewer.hasPermission("invviewer.modify");
+        viewer.sendMessage("§7" + targetName + " is offline, loading their saved inventory...");
+        
+        offlineStore.load(offline.getUniqueId()).whenComplete((data, error) -> Bukkit.getScheduler().runTask(this, () -> {
+            if (!viewer.isOnline()) {
+                return;
+            }
+            if (error != null) {
+                getLogger().warning("Failed to read playerdata for " + targetName + ": " + error.getMessage());
+                viewer.sendMessage("§cCould not read " + targetName + "'s saved inventory.");
+                return;
+            }
+            if (data == null) {
+                viewer.sendMessage("§cNo saved inventory found for " + targetName + ".");
+                return;
+            }
+            if (Bukkit.getPlayer(data.getPlayerId()) != null || offlineStore.isLoggingIn(data.getPlayerId())) {
+                viewer.sendMessage("§e" + targetName + " is logging in, use /invsee again for the live view.");
+                return;
+            }
+            
+            closeSession(viewer);
+            closeOfflineView(viewer);
+            OfflineInventoryView view = new OfflineInventoryView(viewer, targetName, data, editable);
+            offlineViews.put(viewer.getUniqueId(), view);
+            view.open();
+            viewer.sendMessage("§aNow viewing §e" + targetName + "§a's saved inventory "
+                + (editable ? "§7(changes are written before they next log in)" : "§7(read-only)"));
+        }));
+    }
+    
+    /** Close the viewer's offline view, queueing any edits (or applying them, if the target has logged in). */
+    public void closeOfflineView(Player viewer) {
+        if (viewer == null) {
+            return;
+        }
+        OfflineInventoryView view = offlineViews.remove(viewer.getUniqueId());
+        if (view == null) {
+            return;
+        }
+        boolean live = Bukkit.getPlayer(view.getTargetId()) != null || offlineStore.isLoggingIn(view.getTargetId());
+        int queued = view.finish(offlineStore);
+        if (queued > 0) {
+            viewer.sendMessage("§e" + queued + " changed slot(s) " + (live
+                ? "applied to " + view.getTargetName() + "'s live inventory."
+                : "will be written to " + view.getTargetName() + "'s inventory before they next log in."));
+        }
+        if (viewer.getOpenInventory().getTopInventory().equals(view.getViewInventory())) {
+            viewer.closeInventory();
+        }
+    }
+    
+    /** A player whose saved inventory is open has logged in: close those views, applying their edits live. */
+    public void closeOfflineViews(Player target) {
+        for (OfflineInventoryView view : new ArrayList<>(offlineViews.values())) {
+            if (view.getTargetId().equals(target.getUniqueId())) {
+                view.getViewer().sendMessage("§e" + target.getName() + " logged in; the offline view was closed.");
+                closeOfflineView(view.getViewer());
+            }
+        }
+    }
+    
+    public OfflineInventoryView getOfflineView(Player viewer) {
+        return offlineViews.get(viewer.getUniqueId());
+    }
+    
+    /** Show the viewer the target's live view, joining it if someone else already has it open. */
+    public void openSession(Player viewer, Player target) {
+        // Close existing session if any
+        closeSession(viewer);
+        
+        InventorySession session = sessionsByTarget.computeIfAbsent(target.getUniqueId(),
+            id -> new InventorySession(target, this));
+        sessionsByViewer.put(viewer.getUniqueId(), session);
+        session.addViewer(viewer);
+    }
+    
+    /** Take the viewer out of their session; the session is dropped when its last viewer leaves. */
     public void closeSession(Player viewer) {
-        InventorySession session = activeSessions.remove(viewer.getUniqueId());
-        if (session != null) {
+        InventorySession session = sessionsByViewer.remove(viewer.getUniqueId());
+        if (session == null) {
+            return;
+        }
+        session.removeViewer(viewer);
+        if (!session.hasViewers()) {
+            sessionsByTarget.remove(session.getTarget().getUniqueId());
             session.close();
         }
     }
     
-    public Map<UUID, InventorySession> getActiveSessions() {
-        return activeSessions;
+    /**
+     * Close the target's view for all viewers.
+     * @return the viewers it was open for
+     */
+    public Set<Player> closeTarget(Player target) {
+        InventorySession session = sessionsByTarget.remove(target.getUniqueId());
+        if (session == null) {
+            return Collections.emptySet();
+        }
+        Set<Player> viewers = new HashSet<>(session.getViewers());
+        for (Player viewer : viewers) {
+            sessionsByViewer.remove(viewer.getUniqueId());
+        }
+        session.close();
+        return viewers;
+    }
+    
+    /** Mark parts of the target's view for refresh, if anyone is watching them. */
+    public void markTargetDirty(Player target, InventorySession.Widget... widgets) {
+        InventorySession session = sessionsByTarget.get(target.getUniqueId());
+        if (session != null) {
+            session.markDirty(widgets);
+            updateTask.enqueue(session);
+        }
+    }
+    
+    /**
+     * The target's change timeline, created on first use; null if timelines are disabled.
+     */
+    public InventoryTimeline getTimeline(Player target) {
+        if (!getConfig().getBoolean("timeline.enabled", true)) {
+            return null;
+        }
+        return timelines.computeIfAbsent(target.getUniqueId(),
+            id -> new InventoryTimeline(Math.max(1, getConfig().getInt("timeline.size", 256))));
+    }
+    
+    /** Forget a player's timeline (they logged out). */
+    public void dropTimeline(Player target) {
+        timelines.remove(target.getUniqueId());
+        for (TimelineView view : new ArrayList<>(timelineViews.values())) {
+            if (view.getTarget().equals(target)) {
+                closeTimelineView(view.getViewer());
+            }
+        }
+    }
+    
+    /** Swap the viewer's live view for the first page of the target's timeline. */
+    public void openTimelineView(Player viewer, InventorySession session) {
+        if (session.getTimeline() == null) {
+            return;
+        }
+        closeSession(viewer);
+        TimelineView view = new TimelineView(viewer, session.getTarget(), session.getTimeline());
+        timelineViews.put(viewer.getUniqueId(), view);
+        view.open();
+    }
+    
+    public void closeTimelineView(Player viewer) {
+        TimelineView view = timelineViews.remove(viewer.getUniqueId());
+        if (view != null && viewer.getOpenInventory().getTopInventory().equals(view.getViewInventory())) {
+            viewer.closeInventory();
+        }
+    }
+    
+    public TimelineView getTimelineView(Player viewer) {
+        return timelineViews.get(viewer.getUniqueId());
+    }
+    
+    /** The session the viewer has open, or null. */
+    public InventorySession getSession(Player viewer) {
+        return sessionsByViewer.get(viewer.getUniqueId());
+    }
+    
+    /** All live sessions, one per watched player. */
+    public Collection<InventorySession> getSessions() {
+        return sessionsByTarget.values();
     }
 }
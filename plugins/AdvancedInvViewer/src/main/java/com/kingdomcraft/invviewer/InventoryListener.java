@@ -6,8 +6,11 @@ import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryAction;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.inventory.ItemStack;
 
@@ -24,13 +27,39 @@ public class InventoryListener implements Listener {
         if (!(event.getWhoClicked() instanceof Player)) return;
         
         Player viewer = (Player) event.getWhoClicked();
-        InventorySession session = plugin.getActiveSessions().get(viewer.getUniqueId());
+        
+        OfflineInventoryView offlineView = plugin.getOfflineView(viewer);
+        if (offlineView != null && event.getInventory().equals(offlineView.getViewInventory())) {
+            onOfflineViewClick(event, viewer, offlineView);
+            return;
+        }
+        
+        TimelineView timelineView = plugin.getTimelineView(viewer);
+        if (timelineView != null && event.getInventory().equals(timelineView.getViewInventory())) {
+            onTimelineClick(event, viewer, timelineView);
+            return;
+        }
+        
+        InventorySession session = plugin.getSession(viewer);
         
         if (session == null) return;
         if (!event.getInventory().equals(session.getViewInventory())) return;
         
         event.setCancelled(true); // Cancel by default
         
+        // Shift-clicks and double-click collecting could move items into decoration slots
+        InventoryAction action = event.getAction();
+        boolean safeAction = action != InventoryAction.MOVE_TO_OTHER_INVENTORY && action != InventoryAction.COLLECT_TO_CURSOR;
+        boolean canModify = viewer.hasPermission("invviewer.modify");
+        
+        if (!session.getViewInventory().equals(event.getClickedInventory())) {
+            // Viewer's own inventory: allow picking items up to place them
+            if (canModify && safeAction) {
+                event.setCancelled(false);
+            }
+            return;
+        }
+        
         ItemStack clickedItem = event.getCurrentItem();
         if (clickedItem == null || clickedItem.getType() == Material.AIR) return;
         
@@ -53,8 +82,13 @@ public class InventoryListener implements Listener {
             return;
         }
         
+        if (slot == InventorySession.TIMELINE_SLOT && session.getTimeline() != null) {
+            plugin.openTimelineView(viewer, session);
+            return;
+        }
+        
         // Allow item modification if viewer has permission and clicking main inventory slots
-        if (viewer.hasPermission("invviewer.modify") && slot < 36) {
+        if (canModify && safeAction && slot < 36) {
             event.setCancelled(false); // Allow the click
             
             // Map to actual inventory slot
@@ -70,17 +104,108 @@ public class InventoryListener implements Listener {
             // Sync the change to target's inventory
             ItemStack newItem = event.getCursor();
             session.getTarget().getInventory().setItem(targetSlot, newItem);
+            plugin.markTargetDirty(session.getTarget(), InventorySession.Widget.ITEMS);
             
             viewer.sendMessage(Component.text("Modified item in slot " + slot, NamedTextColor.YELLOW));
         }
     }
     
+    private void onOfflineViewClick(InventoryClickEvent event, Player viewer, OfflineInventoryView view) {
+        event.setCancelled(true); // Cancel by default
+        
+        // Shift-clicks and double-click collecting could move items into decoration slots
+        InventoryAction action = event.getAction();
+        boolean safeAction = action != InventoryAction.MOVE_TO_OTHER_INVENTORY && action != InventoryAction.COLLECT_TO_CURSOR;
+        
+        if (!view.getViewInventory().equals(event.getClickedInventory())) {
+            // Viewer's own inventory: allow picking items up to place them
+            if (view.isEditable() && safeAction) {
+                event.setCancelled(false);
+            }
+            return;
+        }
+        
+        int slot = event.getSlot();
+        if (slot == 53) {
+            viewer.closeInventory();
+            viewer.sendMessage(Component.text("Closed inventory viewer.", NamedTextColor.GRAY));
+            return;
+        }
+        if (slot == 45 && viewer.hasPermission("invviewer.enderchest")) {
+            view.toggleEnderChest();
+            return;
+        }
+        if (view.isEditable() && safeAction && view.isContentSlot(slot)) {
+            event.setCancelled(false);
+        }
+    }
+    
+    private void onTimelineClick(InventoryClickEvent event, Player viewer, TimelineView view) {
+        event.setCancelled(true);
+        if (!view.getViewInventory().equals(event.getClickedInventory())) return;
+        
+        switch (event.getSlot()) {
+            case TimelineView.PREVIOUS_SLOT -> view.turnPage(-1);
+            case TimelineView.NEXT_SLOT -> view.turnPage(1);
+            case TimelineView.BACK_SLOT -> {
+                plugin.closeTimelineView(viewer);
+                if (view.getTarget().isOnline()) {
+                    plugin.openSession(viewer, view.getTarget());
+                }
+            }
+            default -> { }
+        }
+    }
+    
+    @EventHandler
+    public void onInventoryDrag(InventoryDragEvent event) {
+        if (!(event.getWhoClicked() instanceof Player viewer)) return;
+        TimelineView timelineView = plugin.getTimelineView(viewer);
+        if (timelineView != null && event.getInventory().equals(timelineView.getViewInventory())) {
+            event.setCancelled(true);
+            return;
+        }
+        // Drags aren't synced to the target, so they can't touch the live view
+        InventorySession session = plugin.getSession(viewer);
+        if (session != null && event.getInventory().equals(session.getViewInventory())) {
+            for (int rawSlot : event.getRawSlots()) {
+                if (rawSlot < session.getViewInventory().getSize()) {
+                    event.setCancelled(true);
+                    return;
+                }
+            }
+            return;
+        }
+        OfflineInventoryView view = plugin.getOfflineView(viewer);
+        if (view == null || !event.getInventory().equals(view.getViewInventory())) return;
+        
+        for (int rawSlot : event.getRawSlots()) {
+            if (rawSlot < view.getViewInventory().getSize() && (!view.isEditable() || !view.isContentSlot(rawSlot))) {
+                event.setCancelled(true);
+                return;
+            }
+        }
+    }
+    
     @EventHandler
     public void onInventoryClose(InventoryCloseEvent event) {
         if (!(event.getPlayer() instanceof Player)) return;
         
         Player viewer = (Player) event.getPlayer();
-        InventorySession session = plugin.getActiveSessions().get(viewer.getUniqueId());
+        
+        OfflineInventoryView offlineView = plugin.getOfflineView(viewer);
+        if (offlineView != null && event.getInventory().equals(offlineView.getViewInventory())) {
+            plugin.closeOfflineView(viewer);
+            return;
+        }
+        
+        TimelineView timelineView = plugin.getTimelineView(viewer);
+        if (timelineView != null && event.getInventory().equals(timelineView.getViewInventory())) {
+            plugin.closeTimelineView(viewer);
+            return;
+        }
+        
+        InventorySession session = plugin.getSession(viewer);
         
         if (session != null && event.getInventory().equals(session.getViewInventory())) {
             plugin.closeSession(viewer);
@@ -93,13 +218,19 @@ public class InventoryListener implements Listener {
         
         // Close session if player is a viewer
         plugin.closeSession(player);
+        plugin.closeOfflineView(player);
+        plugin.closeTimelineView(player);
         
-        // Close sessions viewing this player
-        plugin.getActiveSessions().values().stream()
-            .filter(session -> session.getTarget().equals(player))
-            .forEach(session -> {
-                session.getViewer().closeInventory();
-                session.getViewer().sendMessage(Component.text(player.getName() + " has logged out.", NamedTextColor.RED));
-            });
+        // Close the view of this player for everyone watching
+        for (Player viewer : plugin.closeTarget(player)) {
+            viewer.sendMessage(Component.text(player.getName() + " has logged out.", NamedTextColor.RED));
+        }
+        plugin.dropTimeline(player);
+    }
+    
+    @EventHandler
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        // Their saved inventory is live again
+        plugin.closeOfflineViews(event.getPlayer());
     }
 }
@@ -4,25 +4,81 @@ import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.format.TextDecoration;
 import org.bukkit.Bukkit;
+import org.bukkit.GameMode;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
 import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.potion.PotionEffect;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
+/**
+ * Live view of one player's inventory, shared by every staff member watching them:
+ * the view is built and refreshed once no matter how many viewers have it open.
+ *
+ * Decoration items are built once. A refresh compares every slot against what was
+ * last written and only touches the slots that changed; refreshes are requested by
+ * the target's own inventory/health/food/effect events (see {@link TargetListener}).
+ *
+ * Each {@link Widget} is marked dirty on its own and has its own refresh tier: items
+ * refresh as soon as they change, vitals and effects at most every few ticks. The
+ * stat items are only rebuilt when the values they show have changed.
+ */
 public class InventorySession {
     
-    private final Player viewer;
+    /** Parts of the view that are refreshed separately. */
+    public enum Widget {
+        ITEMS,   // inventory, hotbar, armor, offhand
+        VITALS,  // health and hunger
+        STATS,   // stats head
+        EFFECTS; // potion effects
+        
+        static final Widget[] VALUES = values();
+    }
+    
+    // Static decorations, shared by every session (and the offline view)
+    static final ItemStack SEPARATOR = createSeparator();
+    static final ItemStack EMPTY_HELMET = createPlaceholder("Helmet");
+    static final ItemStack EMPTY_CHESTPLATE = createPlaceholder("Chestplate");
+    static final ItemStack EMPTY_LEGGINGS = createPlaceholder("Leggings");
+    static final ItemStack EMPTY_BOOTS = createPlaceholder("Boots");
+    static final ItemStack EMPTY_OFFHAND = createPlaceholder("Offhand");
+    private static final ItemStack REFRESH_BUTTON = createRefreshButton();
+    static final ItemStack CLOSE_BUTTON = createCloseButton();
+    private static final ItemStack TIMELINE_BUTTON = createTimelineButton();
+    static final int TIMELINE_SLOT = 52;
+    
+    private final Set<Player> viewers = new LinkedHashSet<>();
     private final Player target;
     private final AdvancedInvViewer plugin;
     private final Inventory viewInventory;
+    private final ItemStack enderChestButton;
+    private final InventoryTimeline timeline; // null if timelines are disabled
+    // What each slot was last set to, so unchanged slots aren't rewritten
+    private final ItemStack[] shown = new ItemStack[54];
     private boolean isOpen = false;
+    private boolean itemsShown = false;
+    private final EnumSet<Widget> dirty = EnumSet.allOf(Widget.class);
+    private final int[] renderedAt = new int[Widget.VALUES.length];
+    
+    // Values the stat widgets were last built from; health is kept in tenths as displayed
+    private int vitalsHealth = -1;
+    private int vitalsMaxHealth = -1;
+    private int vitalsFood = -1;
+    private int vitalsSaturation = -1;
+    private int statsHealth = -1;
+    private int statsMaxHealth = -1;
+    private int statsFood = -1;
+    private int statsLevel = -1;
+    private GameMode statsGameMode;
+    private boolean statsFlying;
+    private int effectsSignature = -1;
+    private boolean effectsActive;
     
-    public InventorySession(Player viewer, Player target, AdvancedInvViewer plugin) {
-        this.viewer = viewer;
+    public InventorySession(Player target, AdvancedInvViewer plugin) {
         this.target = target;
         this.plugin = plugin;
         
@@ -32,69 +88,224 @@ public class InventorySession {
                 .append(Component.text(target.getName(), NamedTextColor.GOLD, TextDecoration.BOLD))
                 .append(Component.text(" (LIVE)", NamedTextColor.GREEN, TextDecoration.BOLD))
         );
+        this.enderChestButton = createEnderChestButton();
+        this.timeline = plugin.getTimeline(target);
     }
     
-    public void open() {
-        updateInventory();
+    /** Open the view for another viewer; the first one builds it. */
+    public void addViewer(Player viewer) {
+        if (!isOpen) {
+            drawDecorations();
+            isOpen = true;
+            renderAll();
+        }
+        viewers.add(viewer);
         viewer.openInventory(viewInventory);
-        isOpen = true;
     }
     
-    public void updateInventory() {
-        if (!isOpen || !target.isOnline()) {
-            close();
-            return;
+    public void removeViewer(Player viewer) {
+        if (viewers.remove(viewer) && viewer.getOpenInventory().getTopInventory().equals(viewInventory)) {
+            viewer.closeInventory();
         }
-        
-        // Clear current view
-        viewInventory.clear();
+    }
+    
+    public boolean hasViewers() {
+        return !viewers.isEmpty();
+    }
+    
+    /** Request a refresh of these widgets once their tier allows it. */
+    public void markDirty(Widget... widgets) {
+        Collections.addAll(dirty, widgets);
+    }
+    
+    public boolean isDirty() {
+        return !dirty.isEmpty();
+    }
+    
+    /** Layout that never changes: separators and buttons. */
+    private void drawDecorations() {
+        setSlot(36, SEPARATOR);
+        setSlot(41, SEPARATOR);
+        setSlot(44, SEPARATOR);
+        setSlot(45, enderChestButton);
+        setSlot(46, REFRESH_BUTTON);
+        setSlot(47, SEPARATOR);
+        setSlot(51, SEPARATOR);
+        setSlot(TIMELINE_SLOT, timeline != null ? TIMELINE_BUTTON : SEPARATOR);
+        setSlot(53, CLOSE_BUTTON);
+    }
+    
+    /** Refresh every widget now, ignoring tiers. */
+    public void renderAll() {
+        markDirty(Widget.VALUES);
+        render(Bukkit.getCurrentTick(), new int[Widget.VALUES.length], Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Render the dirty widgets whose tier is due, at most {@code budget} of them.
+     * @param intervals minimum ticks between renders, by widget ordinal
+     * @return number of widgets rendered
+     */
+    public int render(int tick, int[] intervals, int budget) {
+        if (!isOpen) {
+            return 0;
+        }
+        if (!target.isOnline()) {
+            plugin.closeTarget(target);
+            return 0;
+        }
+        int rendered = 0;
+        for (Widget widget : Widget.VALUES) {
+            if (rendered >= budget) {
+                break;
+            }
+            int i = widget.ordinal();
+            if (!dirty.contains(widget) || tick - renderedAt[i] < intervals[i]) {
+                continue;
+            }
+            dirty.remove(widget);
+            renderedAt[i] = tick;
+            switch (widget) {
+                case ITEMS -> renderItems();
+                case VITALS -> renderVitals();
+                case STATS -> renderStats();
+                case EFFECTS -> renderEffects();
+            }
+            rendered++;
+        }
+        return rendered;
+    }
+    
+    private void renderItems() {
+        PlayerInventory inv = target.getInventory();
+        long now = System.currentTimeMillis();
         
         // Row 1-3: Main inventory (27 slots)
         for (int i = 9; i < 36; i++) {
-            ItemStack item = target.getInventory().getItem(i);
-            viewInventory.setItem(i - 9, item);
+            setItemSlot(i - 9, inv.getItem(i), null, now);
         }
         
         // Row 4: Hotbar (9 slots)
         for (int i = 0; i < 9; i++) {
-            ItemStack item = target.getInventory().getItem(i);
-            viewInventory.setItem(27 + i, item);
+            setItemSlot(27 + i, inv.getItem(i), null, now);
         }
         
-        // Row 5: Armor and offhand (8 slots with separators)
-        viewInventory.setItem(36, createSeparator());
-        
-        // Armor slots
-        ItemStack helmet = target.getInventory().getHelmet();
-        ItemStack chestplate = target.getInventory().getChestplate();
-        ItemStack leggings = target.getInventory().getLeggings();
-        ItemStack boots = target.getInventory().getBoots();
-        ItemStack offhand = target.getInventory().getItemInOffHand();
-        
-        viewInventory.setItem(37, helmet != null ? helmet : createPlaceholder("Helmet"));
-        viewInventory.setItem(38, chestplate != null ? chestplate : createPlaceholder("Chestplate"));
-        viewInventory.setItem(39, leggings != null ? leggings : createPlaceholder("Leggings"));
-        viewInventory.setItem(40, boots != null ? boots : createPlaceholder("Boots"));
-        viewInventory.setItem(41, createSeparator());
-        viewInventory.setItem(42, offhand != null && offhand.getType() != Material.AIR ? offhand : createPlaceholder("Offhand"));
-        
-        // Stats button
-        viewInventory.setItem(43, createStatsItem());
-        viewInventory.setItem(44, createSeparator());
-        
-        // Row 6: Controls
-        viewInventory.setItem(45, createEnderChestButton());
-        viewInventory.setItem(46, createRefreshButton());
-        viewInventory.setItem(47, createSeparator());
-        viewInventory.setItem(48, createHealthIndicator());
-        viewInventory.setItem(49, createHungerIndicator());
-        viewInventory.setItem(50, createEffectsButton());
-        viewInventory.setItem(51, createSeparator());
-        viewInventory.setItem(52, createSeparator());
-        viewInventory.setItem(53, createCloseButton());
-    }
-    
-    private ItemStack createSeparator() {
+        // Row 5: Armor and offhand
+        setItemSlot(37, inv.getHelmet(), EMPTY_HELMET, now);
+        setItemSlot(38, inv.getChestplate(), EMPTY_CHESTPLATE, now);
+        setItemSlot(39, inv.getLeggings(), EMPTY_LEGGINGS, now);
+        setItemSlot(40, inv.getBoots(), EMPTY_BOOTS, now);
+        setItemSlot(42, inv.getItemInOffHand(), EMPTY_OFFHAND, now);
+        itemsShown = true;
+    }
+    
+    /** Show one of the target's items, recording the change in the timeline. */
+    private void setItemSlot(int slot, ItemStack item, ItemStack placeholder, long now) {
+        ItemStack before = shown[slot];
+        if (!setSlot(slot, placeholder != null ? orPlaceholder(item, placeholder) : item)) {
+            return;
+        }
+        // The first render only fills the view, nothing changed
+        if (timeline != null && itemsShown) {
+            timeline.record(now, slot, before == null || before.equals(placeholder) ? null : before, item);
+        }
+    }
+    
+    private void renderVitals() {
+        int health = tenths(target.getHealth());
+        int maxHealth = tenths(target.getMaxHealth());
+        if (health != vitalsHealth || maxHealth != vitalsMaxHealth) {
+            vitalsHealth = health;
+            vitalsMaxHealth = maxHealth;
+            setSlot(48, createHealthIndicator(health, maxHealth));
+        }
+        int food = target.getFoodLevel();
+        int saturation = tenths(target.getSaturation());
+        if (food != vitalsFood || saturation != vitalsSaturation) {
+            vitalsFood = food;
+            vitalsSaturation = saturation;
+            setSlot(49, createHungerIndicator(food, saturation));
+        }
+    }
+    
+    private void renderStats() {
+        int health = tenths(target.getHealth());
+        int maxHealth = tenths(target.getMaxHealth());
+        int food = target.getFoodLevel();
+        int level = target.getLevel();
+        GameMode gameMode = target.getGameMode();
+        boolean flying = target.isFlying();
+        if (health == statsHealth && maxHealth == statsMaxHealth && food == statsFood
+                && level == statsLevel && gameMode == statsGameMode && flying == statsFlying) {
+            return;
+        }
+        statsHealth = health;
+        statsMaxHealth = maxHealth;
+        statsFood = food;
+        statsLevel = level;
+        statsGameMode = gameMode;
+        statsFlying = flying;
+        setSlot(43, createStatsItem());
+    }
+    
+    private void renderEffects() {
+        Collection<PotionEffect> active = target.getActivePotionEffects();
+        int signature = 0;
+        for (PotionEffect effect : active) {
+            signature = 31 * signature + effect.getType().hashCode();
+            signature = 31 * signature + effect.getAmplifier();
+            signature = 31 * signature + effect.getDuration() / 20;
+        }
+        if (signature != effectsSignature || active.isEmpty() == effectsActive) {
+            effectsSignature = signature;
+            effectsActive = !active.isEmpty();
+            setSlot(50, createEffectsButton(active));
+        }
+        // Remaining durations count down without an event; redraw them at the effects tier
+        if (effectsActive) {
+            dirty.add(Widget.EFFECTS);
+        }
+    }
+    
+    private static int tenths(double value) {
+        return (int) Math.round(value * 10);
+    }
+    
+    private static String formatTenths(int tenths) {
+        return tenths / 10 + "." + tenths % 10;
+    }
+    
+    private static ItemStack orPlaceholder(ItemStack item, ItemStack placeholder) {
+        return item != null && item.getType() != Material.AIR ? item : placeholder;
+    }
+    
+    /**
+     * Write a slot only if it differs from what the view actually holds. Compared against
+     * the view itself, so a slot a viewer changed is put right again.
+     * @return true if the item differs from the one last set here
+     */
+    private boolean setSlot(int slot, ItemStack item) {
+        if (item != null && item.getType() == Material.AIR) {
+            item = null;
+        }
+        if (!sameItem(item, viewInventory.getItem(slot))) {
+            viewInventory.setItem(slot, item);
+        }
+        if (sameItem(item, shown[slot])) {
+            return false;
+        }
+        // Inventory getters return live mirrors, so keep a copy to compare against
+        shown[slot] = item == null ? null : item.clone();
+        return true;
+    }
+    
+    private static boolean sameItem(ItemStack a, ItemStack b) {
+        boolean aEmpty = a == null || a.getType() == Material.AIR;
+        boolean bEmpty = b == null || b.getType() == Material.AIR;
+        return aEmpty || bEmpty ? aEmpty == bEmpty : a.equals(b);
+    }
+    
+    private static ItemStack createSeparator() {
         ItemStack separator = new ItemStack(Material.GRAY_STAINED_GLASS_PANE);
         ItemMeta meta = separator.getItemMeta();
         meta.displayName(Component.text(" "));
@@ -102,7 +313,7 @@ public class InventorySession {
         return separator;
     }
     
-    private ItemStack createPlaceholder(String slot) {
+    private static ItemStack createPlaceholder(String slot) {
         ItemStack placeholder = new ItemStack(Material.LIGHT_GRAY_STAINED_GLASS_PANE);
         ItemMeta meta = placeholder.getItemMeta();
         meta.displayName(Component.text("Empty " + slot, NamedTextColor.GRAY, TextDecoration.ITALIC));
@@ -117,23 +328,23 @@ public class InventorySession {
         
         List<Component> lore = new ArrayList<>();
         lore.add(Component.text("Health: ", NamedTextColor.RED)
-            .append(Component.text(String.format("%.1f/%.1f", target.getHealth(), target.getMaxHealth()), NamedTextColor.WHITE)));
+            .append(Component.text(formatTenths(statsHealth) + "/" + formatTenths(statsMaxHealth), NamedTextColor.WHITE)));
         lore.add(Component.text("Food: ", NamedTextColor.GOLD)
-            .append(Component.text(target.getFoodLevel() + "/20", NamedTextColor.WHITE)));
+            .append(Component.text(statsFood + "/20", NamedTextColor.WHITE)));
         lore.add(Component.text("Level: ", NamedTextColor.GREEN)
-            .append(Component.text(target.getLevel(), NamedTextColor.WHITE)));
+            .append(Component.text(statsLevel, NamedTextColor.WHITE)));
         lore.add(Component.text("Gamemode: ", NamedTextColor.YELLOW)
-            .append(Component.text(target.getGameMode().name(), NamedTextColor.WHITE)));
+            .append(Component.text(statsGameMode.name(), NamedTextColor.WHITE)));
         lore.add(Component.text("Flying: ", NamedTextColor.LIGHT_PURPLE)
-            .append(Component.text(target.isFlying() ? "Yes" : "No", target.isFlying() ? NamedTextColor.GREEN : NamedTextColor.RED)));
+            .append(Component.text(statsFlying ? "Yes" : "No", statsFlying ? NamedTextColor.GREEN : NamedTextColor.RED)));
         
         meta.lore(lore);
         stats.setItemMeta(meta);
         return stats;
     }
     
-    private ItemStack createHealthIndicator() {
-        double healthPercent = (target.getHealth() / target.getMaxHealth()) * 100;
+    private static ItemStack createHealthIndicator(int health, int maxHealth) {
+        double healthPercent = maxHealth > 0 ? (health * 100.0) / maxHealth : 0;
         Material material;
         NamedTextColor color;
         
@@ -155,34 +366,34 @@ public class InventorySession {
         ItemMeta meta = health.getItemMeta();
         meta.displayName(Component.text("❤ Health", color, TextDecoration.BOLD));
         List<Component> lore = new ArrayList<>();
-        lore.add(Component.text(String.format("%.1f / %.1f", target.getHealth(), target.getMaxHealth()), NamedTextColor.WHITE));
+        lore.add(Component.text(formatTenths(health) + " / " + formatTenths(maxHealth), NamedTextColor.WHITE));
         meta.lore(lore);
         health.setItemMeta(meta);
         return health;
     }
     
-    private ItemStack createHungerIndicator() {
+    private static ItemStack createHungerIndicator(int food, int saturation) {
         ItemStack hunger = new ItemStack(Material.COOKED_BEEF);
         ItemMeta meta = hunger.getItemMeta();
         meta.displayName(Component.text("🍖 Hunger", NamedTextColor.GOLD, TextDecoration.BOLD));
         List<Component> lore = new ArrayList<>();
-        lore.add(Component.text(target.getFoodLevel() + " / 20", NamedTextColor.WHITE));
-        lore.add(Component.text("Saturation: " + String.format("%.1f", target.getSaturation()), NamedTextColor.GRAY));
+        lore.add(Component.text(food + " / 20", NamedTextColor.WHITE));
+        lore.add(Component.text("Saturation: " + formatTenths(saturation), NamedTextColor.GRAY));
         meta.lore(lore);
         hunger.setItemMeta(meta);
         return hunger;
     }
     
-    private ItemStack createEffectsButton() {
+    private static ItemStack createEffectsButton(Collection<PotionEffect> active) {
         ItemStack effects = new ItemStack(Material.BREWING_STAND);
         ItemMeta meta = effects.getItemMeta();
         meta.displayName(Component.text("Active Effects", NamedTextColor.LIGHT_PURPLE, TextDecoration.BOLD));
         List<Component> lore = new ArrayList<>();
         
-        if (target.getActivePotionEffects().isEmpty()) {
+        if (active.isEmpty()) {
             lore.add(Component.text("No active effects", NamedTextColor.GRAY, TextDecoration.ITALIC));
         } else {
-            target.getActivePotionEffects().forEach(effect -> {
+            active.forEach(effect -> {
                 lore.add(Component.text("• " + effect.getType().getName(), NamedTextColor.WHITE)
                     .append(Component.text(" " + (effect.getAmplifier() + 1), NamedTextColor.AQUA))
                     .append(Component.text(" (" + effect.getDuration() / 20 + "s)", NamedTextColor.GRAY)));
@@ -206,19 +417,32 @@ public class InventorySession {
         return enderChest;
     }
     
-    private ItemStack createRefreshButton() {
+    private static ItemStack createRefreshButton() {
         ItemStack refresh = new ItemStack(Material.RECOVERY_COMPASS);
         ItemMeta meta = refresh.getItemMeta();
         meta.displayName(Component.text("Auto-Refresh: ON", NamedTextColor.GREEN, TextDecoration.BOLD));
         List<Component> lore = new ArrayList<>();
-        lore.add(Component.text("Updates 10x per second", NamedTextColor.GRAY));
+        lore.add(Component.text("Updates as the player's", NamedTextColor.GRAY));
+        lore.add(Component.text("inventory and stats change", NamedTextColor.GRAY));
         lore.add(Component.text("Live view enabled", NamedTextColor.GREEN));
         meta.lore(lore);
         refresh.setItemMeta(meta);
         return refresh;
     }
     
-    private ItemStack createCloseButton() {
+    private static ItemStack createTimelineButton() {
+        ItemStack timeline = new ItemStack(Material.CLOCK);
+        ItemMeta meta = timeline.getItemMeta();
+        meta.displayName(Component.text("Timeline", NamedTextColor.GOLD, TextDecoration.BOLD));
+        List<Component> lore = new ArrayList<>();
+        lore.add(Component.text("Click to see recent", NamedTextColor.GRAY));
+        lore.add(Component.text("inventory changes", NamedTextColor.GRAY));
+        meta.lore(lore);
+        timeline.setItemMeta(meta);
+        return timeline;
+    }
+    
+    private static ItemStack createCloseButton() {
         ItemStack close = new ItemStack(Material.BARRIER);
         ItemMeta meta = close.getItemMeta();
         meta.displayName(Component.text("Close", NamedTextColor.RED, TextDecoration.BOLD));
@@ -229,21 +453,31 @@ public class InventorySession {
         return close;
     }
     
+    /** Close the view for everyone still looking at it. */
     public void close() {
         isOpen = false;
-        if (viewer.getOpenInventory().getTopInventory().equals(viewInventory)) {
-            viewer.closeInventory();
+        List<Player> closing = new ArrayList<>(viewers);
+        viewers.clear();
+        for (Player viewer : closing) {
+            if (viewer.getOpenInventory().getTopInventory().equals(viewInventory)) {
+                viewer.closeInventory();
+            }
         }
     }
     
-    public Player getViewer() {
-        return viewer;
+    public Set<Player> getViewers() {
+        return Collections.unmodifiableSet(viewers);
     }
     
     public Player getTarget() {
         return target;
     }
     
+    /** The target's change timeline, or null if timelines are disabled. */
+    public InventoryTimeline getTimeline() {
+        return timeline;
+    }
+    
     public Inventory getViewInventory() {
         return viewInventory;
     }
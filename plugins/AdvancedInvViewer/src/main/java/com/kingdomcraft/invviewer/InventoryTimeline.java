@@ -0,0 +1,142 @@
+package com.kingdomcraft.invviewer;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Bounded history of slot changes for one player, newest entries overwriting the oldest.
+ *
+ * Each change is two longs: the time, and the view slot plus the item before and after,
+ * each packed as material and amount. Item details (names, enchantments, damage) are not
+ * kept; a change that only touched those is flagged instead. A slot keeps at most one
+ * such entry among the newest run of them, so durability ticks don't flood the history.
+ */
+public class InventoryTimeline {
+    
+    private static final Material[] MATERIALS = Material.values();
+    
+    // Packed change: slot (6 bits) | data-only flag (1) | before (23) | after (23)
+    private static final int SLOT_BITS = 6;
+    private static final int FLAG_BIT = SLOT_BITS;
+    private static final int BEFORE_SHIFT = FLAG_BIT + 1;
+    private static final int ITEM_BITS = 23;
+    private static final int AFTER_SHIFT = BEFORE_SHIFT + ITEM_BITS;
+    private static final long ITEM_MASK = (1L << ITEM_BITS) - 1;
+    private static final int AMOUNT_BITS = 7;
+    private static final int AMOUNT_MASK = (1 << AMOUNT_BITS) - 1;
+    
+    private final long[] times;
+    private final long[] changes;
+    private int next;
+    private int size;
+    
+    public InventoryTimeline(int capacity) {
+        this.times = new long[capacity];
+        this.changes = new long[capacity];
+    }
+    
+    /** Record a slot changing; {@code before}/{@code after} may be null for an empty slot. */
+    public void record(long time, int slot, ItemStack before, ItemStack after) {
+        int packedBefore = pack(before);
+        int packedAfter = pack(after);
+        if (packedBefore == packedAfter) {
+            dropDataChange(slot);
+        }
+        long change = slot
+            | (packedBefore == packedAfter ? 1L << FLAG_BIT : 0)
+            | (long) packedBefore << BEFORE_SHIFT
+            | (long) packedAfter << AFTER_SHIFT;
+        times[next] = time;
+        changes[next] = change;
+        next = (next + 1) % times.length;
+        if (size < times.length) {
+            size++;
+        }
+    }
+    
+    /** Remove the slot's entry from the newest run of data-only changes, if it has one. */
+    private void dropDataChange(int slot) {
+        for (int age = 0; age < size && isDataChange(age); age++) {
+            if (getSlot(age) == slot) {
+                // Shift the newer entries back over it
+                for (int a = age; a > 0; a--) {
+                    times[indexOf(a)] = times[indexOf(a - 1)];
+                    changes[indexOf(a)] = changes[indexOf(a - 1)];
+                }
+                next = Math.floorMod(next - 1, times.length);
+                size--;
+                return;
+            }
+        }
+    }
+    
+    private static int pack(ItemStack item) {
+        if (item == null || item.getType() == Material.AIR) {
+            return 0;
+        }
+        return (item.getType().ordinal() + 1) << AMOUNT_BITS | Math.min(item.getAmount(), AMOUNT_MASK);
+    }
+    
+    /** A copy of the current entries, so pages don't shift while someone reads them. */
+    public InventoryTimeline snapshot() {
+        InventoryTimeline copy = new InventoryTimeline(Math.max(1, size));
+        for (int i = size - 1; i >= 0; i--) {
+            int index = indexOf(i);
+            copy.times[copy.next] = times[index];
+            copy.changes[copy.next] = changes[index];
+            copy.next = (copy.next + 1) % copy.times.length;
+            copy.size++;
+        }
+        return copy;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    // Accessors take the entry's age: 0 is the newest
+    
+    private int indexOf(int age) {
+        return Math.floorMod(next - 1 - age, times.length);
+    }
+    
+    public long getTime(int age) {
+        return times[indexOf(age)];
+    }
+    
+    public int getSlot(int age) {
+        return (int) (changes[indexOf(age)] & ((1 << SLOT_BITS) - 1));
+    }
+    
+    /** True if only the item's details changed (same material and amount). */
+    public boolean isDataChange(int age) {
+        return (changes[indexOf(age)] & (1L << FLAG_BIT)) != 0;
+    }
+    
+    /** Material before the change, or null if the slot was empty. */
+    public Material getBeforeType(int age) {
+        return typeOf(itemBits(age, BEFORE_SHIFT));
+    }
+    
+    public int getBeforeAmount(int age) {
+        return (int) (itemBits(age, BEFORE_SHIFT) & AMOUNT_MASK);
+    }
+    
+    /** Material after the change, or null if the slot is now empty. */
+    public Material getAfterType(int age) {
+        return typeOf(itemBits(age, AFTER_SHIFT));
+    }
+    
+    public int getAfterAmount(int age) {
+        return (int) (itemBits(age, AFTER_SHIFT) & AMOUNT_MASK);
+    }
+    
+    private long itemBits(int age, int shift) {
+        return (changes[indexOf(age)] >>> shift) & ITEM_MASK;
+    }
+    
+    private static Material typeOf(long packed) {
+        int ordinal = (int) (packed >>> AMOUNT_BITS) - 1;
+        return ordinal >= 0 && ordinal < MATERIALS.length ? MATERIALS[ordinal] : null;
+    }
+}
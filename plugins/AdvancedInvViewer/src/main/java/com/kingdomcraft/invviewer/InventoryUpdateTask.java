@@ -1,18 +1,73 @@
 package com.kingdomcraft.invviewer;
 
+import com.kingdomcraft.invviewer.InventorySession.Widget;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.scheduler.BukkitRunnable;
 
+import java.util.*;
+
+/**
+ * Runs every tick and renders the sessions that were marked dirty since the last run.
+ * Events fire before the change is applied, so refreshing here (a tick later) sees the
+ * result. Every {@code fallbackInterval} ticks all sessions are refreshed anyway to catch
+ * changes that don't fire an event (commands, other plugins); unchanged slots cost no writes.
+ *
+ * Each widget has its own minimum interval, and at most {@code maxRendersPerTick} widgets
+ * are rendered per tick across all sessions. Sessions that still have work left go to the
+ * back of the queue, so a busy tick delays every session a little rather than one a lot.
+ */
 public class InventoryUpdateTask extends BukkitRunnable {
     
     private final AdvancedInvViewer plugin;
+    private final int fallbackInterval;
+    private final int maxRendersPerTick;
+    private final int[] intervals = new int[Widget.VALUES.length];
+    private final Set<InventorySession> queued = new LinkedHashSet<>();
+    private final List<InventorySession> requeue = new ArrayList<>();
+    private int ticks;
     
     public InventoryUpdateTask(AdvancedInvViewer plugin) {
         this.plugin = plugin;
+        FileConfiguration config = plugin.getConfig();
+        this.fallbackInterval = config.getInt("refresh.fallback-interval-ticks", 40);
+        int budget = config.getInt("refresh.max-renders-per-tick", 40);
+        this.maxRendersPerTick = budget > 0 ? budget : Integer.MAX_VALUE;
+        intervals[Widget.ITEMS.ordinal()] = Math.max(0, config.getInt("refresh.items-interval-ticks", 0));
+        intervals[Widget.VITALS.ordinal()] = Math.max(0, config.getInt("refresh.vitals-interval-ticks", 10));
+        intervals[Widget.STATS.ordinal()] = Math.max(0, config.getInt("refresh.stats-interval-ticks", 10));
+        intervals[Widget.EFFECTS.ordinal()] = Math.max(0, config.getInt("refresh.effects-interval-ticks", 40));
+    }
+    
+    /** Queue a session that has dirty widgets. */
+    public void enqueue(InventorySession session) {
+        queued.add(session);
     }
     
     @Override
     public void run() {
-        // Update all active sessions
-        plugin.getActiveSessions().values().forEach(InventorySession::updateInventory);
+        if (fallbackInterval > 0 && ++ticks % fallbackInterval == 0) {
+            for (InventorySession session : plugin.getSessions()) {
+                session.markDirty(Widget.VALUES);
+                queued.add(session);
+            }
+        }
+        if (queued.isEmpty()) {
+            return;
+        }
+        
+        int tick = Bukkit.getCurrentTick();
+        int budget = maxRendersPerTick;
+        Iterator<InventorySession> it = queued.iterator();
+        while (it.hasNext() && budget > 0) {
+            InventorySession session = it.next();
+            it.remove();
+            budget -= session.render(tick, intervals, budget);
+            if (session.isOpen() && session.isDirty()) {
+                requeue.add(session);
+            }
+        }
+        queued.addAll(requeue);
+        requeue.clear();
     }
 }
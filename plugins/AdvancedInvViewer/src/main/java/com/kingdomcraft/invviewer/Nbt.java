@@ -0,0 +1,211 @@
+package com.kingdomcraft.invviewer;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Minimal reader/writer for gzip'd NBT files (playerdata), so offline players can be
+ * inspected without NMS. Tags map to plain Java values: Byte, Short, Integer, Long, Float,
+ * Double, byte[], String, {@link NbtList}, Map (compound), int[], long[].
+ */
+final class Nbt {
+    
+    private static final byte END = 0;
+    private static final byte BYTE = 1;
+    private static final byte SHORT = 2;
+    private static final byte INT = 3;
+    private static final byte LONG = 4;
+    private static final byte FLOAT = 5;
+    private static final byte DOUBLE = 6;
+    private static final byte BYTE_ARRAY = 7;
+    private static final byte STRING = 8;
+    private static final byte LIST = 9;
+    private static final byte COMPOUND = 10;
+    private static final byte INT_ARRAY = 11;
+    private static final byte LONG_ARRAY = 12;
+    
+    private static final int MAX_DEPTH = 512;
+    
+    /** A list tag; keeps its element type so empty lists round-trip. */
+    static final class NbtList {
+        final byte elementType;
+        final List<Object> values;
+        
+        NbtList(byte elementType, List<Object> values) {
+            this.elementType = elementType;
+            this.values = values;
+        }
+    }
+    
+    private Nbt() {
+    }
+    
+    static Map<String, Object> readCompressed(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(new GZIPInputStream(in)));
+        if (data.readByte() != COMPOUND) {
+            throw new IOException("Root tag is not a compound");
+        }
+        data.readUTF();
+        return readCompound(data, 0);
+    }
+    
+    static Map<String, Object> readCompressed(byte[] bytes) throws IOException {
+        return readCompressed(new ByteArrayInputStream(bytes));
+    }
+    
+    static void writeCompressed(OutputStream out, Map<String, Object> root) throws IOException {
+        GZIPOutputStream gzip = new GZIPOutputStream(out);
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(gzip));
+        data.writeByte(COMPOUND);
+        data.writeUTF("");
+        writeCompound(data, root);
+        data.flush();
+        gzip.finish();
+    }
+    
+    static byte[] writeCompressed(Map<String, Object> root) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writeCompressed(bytes, root);
+        return bytes.toByteArray();
+    }
+    
+    // ── Reading ──
+    
+    private static Map<String, Object> readCompound(DataInput in, int depth) throws IOException {
+        Map<String, Object> compound = new LinkedHashMap<>();
+        while (true) {
+            byte type = in.readByte();
+            if (type == END) {
+                return compound;
+            }
+            String name = in.readUTF();
+            compound.put(name, readPayload(in, type, depth + 1));
+        }
+    }
+    
+    private static Object readPayload(DataInput in, byte type, int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("NBT nested too deeply");
+        }
+        switch (type) {
+            case BYTE: return in.readByte();
+            case SHORT: return in.readShort();
+            case INT: return in.readInt();
+            case LONG: return in.readLong();
+            case FLOAT: return in.readFloat();
+            case DOUBLE: return in.readDouble();
+            case BYTE_ARRAY: {
+                byte[] values = new byte[checkLength(in.readInt())];
+                in.readFully(values);
+                return values;
+            }
+            case STRING: return in.readUTF();
+            case LIST: {
+                byte elementType = in.readByte();
+                int length = checkLength(in.readInt());
+                List<Object> values = new ArrayList<>(Math.min(length, 1024));
+                for (int i = 0; i < length; i++) {
+                    values.add(readPayload(in, elementType, depth + 1));
+                }
+                return new NbtList(elementType, values);
+            }
+            case COMPOUND: return readCompound(in, depth);
+            case INT_ARRAY: {
+                int[] values = new int[checkLength(in.readInt())];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = in.readInt();
+                }
+                return values;
+            }
+            case LONG_ARRAY: {
+                long[] values = new long[checkLength(in.readInt())];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = in.readLong();
+                }
+                return values;
+            }
+            default: throw new IOException("Unknown NBT tag type " + type);
+        }
+    }
+    
+    private static int checkLength(int length) throws IOException {
+        if (length < 0) {
+            throw new IOException("Negative NBT length");
+        }
+        return length;
+    }
+    
+    // ── Writing ──
+    
+    private static void writeCompound(DataOutput out, Map<String, Object> compound) throws IOException {
+        for (Map.Entry<String, Object> e : compound.entrySet()) {
+            out.writeByte(typeOf(e.getValue()));
+            out.writeUTF(e.getKey());
+            writePayload(out, e.getValue());
+        }
+        out.writeByte(END);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static void writePayload(DataOutput out, Object value) throws IOException {
+        if (value instanceof Byte b) {
+            out.writeByte(b);
+        } else if (value instanceof Short s) {
+            out.writeShort(s);
+        } else if (value instanceof Integer i) {
+            out.writeInt(i);
+        } else if (value instanceof Long l) {
+            out.writeLong(l);
+        } else if (value instanceof Float f) {
+            out.writeFloat(f);
+        } else if (value instanceof Double d) {
+            out.writeDouble(d);
+        } else if (value instanceof byte[] bytes) {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else if (value instanceof String s) {
+            out.writeUTF(s);
+        } else if (value instanceof NbtList list) {
+            out.writeByte(list.values.isEmpty() ? list.elementType : typeOf(list.values.get(0)));
+            out.writeInt(list.values.size());
+            for (Object element : list.values) {
+                writePayload(out, element);
+            }
+        } else if (value instanceof Map<?, ?> map) {
+            writeCompound(out, (Map<String, Object>) map);
+        } else if (value instanceof int[] ints) {
+            out.writeInt(ints.length);
+            for (int i : ints) {
+                out.writeInt(i);
+            }
+        } else if (value instanceof long[] longs) {
+            out.writeInt(longs.length);
+            for (long l : longs) {
+                out.writeLong(l);
+            }
+        } else {
+            throw new IOException("Not an NBT value: " + value);
+        }
+    }
+    
+    private static byte typeOf(Object value) throws IOException {
+        if (value instanceof Byte) return BYTE;
+        if (value instanceof Short) return SHORT;
+        if (value instanceof Integer) return INT;
+        if (value instanceof Long) return LONG;
+        if (value instanceof Float) return FLOAT;
+        if (value instanceof Double) return DOUBLE;
+        if (value instanceof byte[]) return BYTE_ARRAY;
+        if (value instanceof String) return STRING;
+        if (value instanceof NbtList) return LIST;
+        if (value instanceof Map) return COMPOUND;
+        if (value instanceof int[]) return INT_ARRAY;
+        if (value instanceof long[]) return LONG_ARRAY;
+        throw new IOException("Not an NBT value: " + value);
+    }
+}
@@ -0,0 +1,448 @@
+package com.kingdomcraft.invviewer;
+
+import com.destroystokyo.paper.event.player.PlayerConnectionCloseEvent;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.IntFunction;
+
+/**
+ * Reads offline players' inventories and ender chests straight from
+ * {@code <main world>/playerdata/<uuid>.dat}, and writes queued edits back.
+ *
+ * All file access and NBT parsing happens on one background thread, so a load never
+ * blocks the main thread and a queued write is always applied before a later load of
+ * the same file. Parsed results are kept in a small LRU cache, checked against the
+ * file's modification time. A player's pending writes are waited for in
+ * {@link AsyncPlayerPreLoginEvent}, so they land before the server reads the file.
+ * Edits for a player who is online, or past pre-login, go to their live inventory
+ * instead, so items a viewer moved never end up in two places.
+ */
+public class OfflineInventoryStore implements Listener {
+    
+    // Index layout of OfflineInventory#getContents, same as PlayerInventory#getContents
+    static final int BOOTS = 36;
+    static final int LEGGINGS = 37;
+    static final int CHESTPLATE = 38;
+    static final int HELMET = 39;
+    static final int OFFHAND = 40;
+    static final int CONTENTS_SIZE = 41;
+    static final int ENDER_SIZE = 27;
+    
+    private final AdvancedInvViewer plugin;
+    private final ExecutorService executor;
+    private final Map<UUID, OfflineInventory> cache;
+    private final Map<UUID, Future<?>> pendingWrites = new ConcurrentHashMap<>();
+    // Players between pre-login and join, and edits made meanwhile (applied once they join)
+    private final Set<UUID> loggingIn = new HashSet<>();
+    private final Map<UUID, List<Edits>> heldEdits = new HashMap<>();
+    
+    public OfflineInventoryStore(AdvancedInvViewer plugin, int cacheSize) {
+        this.plugin = plugin;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "AdvancedInvViewer-Offline");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, OfflineInventory> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+    
+    private File playerFile(UUID playerId) {
+        File folder = new File(Bukkit.getWorlds().get(0).getWorldFolder(), "playerdata");
+        return new File(folder, playerId + ".dat");
+    }
+    
+    // ── Loading ──
+    
+    /** Load a player's saved inventory in the background. Completes with null if they have no data. */
+    public CompletableFuture<OfflineInventory> load(UUID playerId) {
+        File file = playerFile(playerId);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return loadNow(playerId, file);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+    
+    private OfflineInventory loadNow(UUID playerId, File file) throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+        OfflineInventory cached = cache.get(playerId);
+        if (cached != null && cached.lastModified == file.lastModified()) {
+            return cached;
+        }
+        
+        Map<String, Object> root;
+        try (InputStream in = new FileInputStream(file)) {
+            root = Nbt.readCompressed(in);
+        }
+        int dataVersion = root.get("DataVersion") instanceof Integer v ? v : 0;
+        
+        ItemStack[] contents = new ItemStack[CONTENTS_SIZE];
+        for (Map<String, Object> entry : compounds(root.get("Inventory"))) {
+            int index = contentIndex(slotOf(entry));
+            if (index >= 0) {
+                contents[index] = toItem(entry, dataVersion);
+            }
+        }
+        // Newer versions keep armor and offhand in a separate compound
+        if (root.get("equipment") instanceof Map<?, ?> equipment) {
+            readEquipment(equipment, "feet", BOOTS, contents, dataVersion);
+            readEquipment(equipment, "legs", LEGGINGS, contents, dataVersion);
+            readEquipment(equipment, "chest", CHESTPLATE, contents, dataVersion);
+            readEquipment(equipment, "head", HELMET, contents, dataVersion);
+            readEquipment(equipment, "offhand", OFFHAND, contents, dataVersion);
+        }
+        
+        ItemStack[] ender = new ItemStack[ENDER_SIZE];
+        for (Map<String, Object> entry : compounds(root.get("EnderItems"))) {
+            int slot = slotOf(entry);
+            if (slot >= 0 && slot < ENDER_SIZE) {
+                ender[slot] = toItem(entry, dataVersion);
+            }
+        }
+        
+        OfflineInventory inventory = new OfflineInventory(playerId, contents, ender, file.lastModified());
+        cache.put(playerId, inventory);
+        return inventory;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void readEquipment(Map<?, ?> equipment, String key, int index, ItemStack[] contents, int dataVersion) {
+        if (equipment.get(key) instanceof Map<?, ?> item) {
+            contents[index] = toItem((Map<String, Object>) item, dataVersion);
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> compounds(Object tag) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        if (tag instanceof Nbt.NbtList list) {
+            for (Object value : list.values) {
+                if (value instanceof Map<?, ?> map) {
+                    result.add((Map<String, Object>) map);
+                }
+            }
+        }
+        return result;
+    }
+    
+    private static int slotOf(Map<String, Object> entry) {
+        return entry.get("Slot") instanceof Byte b ? b : Integer.MIN_VALUE;
+    }
+    
+    /** playerdata Slot → contents index: 0-35 as is, 100-103 armor, -106 offhand. */
+    private static int contentIndex(int slot) {
+        if (slot >= 0 && slot < 36) return slot;
+        if (slot >= 100 && slot <= 103) return BOOTS + (slot - 100);
+        if (slot == -106) return OFFHAND;
+        return -1;
+    }
+    
+    /** Item NBT → ItemStack, through Paper's own (version-upgrading) deserializer. */
+    private ItemStack toItem(Map<String, Object> entry, int dataVersion) {
+        Map<String, Object> item = new LinkedHashMap<>(entry);
+        item.remove("Slot");
+        item.put("DataVersion", dataVersion);
+        try {
+            return ItemStack.deserializeBytes(Nbt.writeCompressed(item));
+        } catch (Exception e) {
+            plugin.getLogger().warning("Skipping unreadable offline item: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    // ── Queued edits ──
+    
+    /** Changed slots from one view, and the snapshot they were made against. */
+    private record Edits(OfflineInventory snapshot, Map<Integer, ItemStack> inventory, Map<Integer, ItemStack> ender) {}
+    
+    /**
+     * Write changed main-inventory slots (0-35) and ender chest slots into the player's
+     * file in the background. A null item clears the slot. If the player is online the
+     * edits are applied to their live inventory now; if they are logging in, once they join.
+     * Main thread only.
+     */
+    public void queueEdits(OfflineInventory snapshot, Map<Integer, ItemStack> inventoryEdits, Map<Integer, ItemStack> enderEdits) {
+        queueEdits(new Edits(snapshot, inventoryEdits, enderEdits));
+    }
+    
+    private void queueEdits(Edits edits) {
+        UUID playerId = edits.snapshot().getPlayerId();
+        Player online = Bukkit.getPlayer(playerId);
+        if (online != null) {
+            applyLive(online, edits);
+            return;
+        }
+        synchronized (this) {
+            if (loggingIn.contains(playerId)) {
+                heldEdits.computeIfAbsent(playerId, id -> new ArrayList<>()).add(edits);
+            } else {
+                submitWrite(edits);
+            }
+        }
+    }
+    
+    /** Whether the player is past pre-login but hasn't joined yet. */
+    public synchronized boolean isLoggingIn(UUID playerId) {
+        return loggingIn.contains(playerId);
+    }
+    
+    // Callers hold the lock, so a write can't slip past onPreLogin unwaited
+    private void submitWrite(Edits edits) {
+        UUID playerId = edits.snapshot().getPlayerId();
+        File file = playerFile(playerId);
+        Future<?> write = executor.submit(() -> {
+            try {
+                if (!writeEdits(playerId, file, edits)) {
+                    handBack(edits);
+                }
+            } catch (IOException e) {
+                plugin.getLogger().severe("Failed to write offline inventory edits for " + playerId + ": " + e.getMessage());
+            }
+        });
+        // Later writes queue behind earlier ones, so waiting for the newest is enough
+        pendingWrites.put(playerId, write);
+    }
+    
+    /** @return false if the player was online, so nothing was written */
+    private boolean writeEdits(UUID playerId, File file, Edits edits) throws IOException {
+        if (Bukkit.getPlayer(playerId) != null) {
+            return false;
+        }
+        
+        Map<String, Object> root;
+        try (InputStream in = new FileInputStream(file)) {
+            root = Nbt.readCompressed(in);
+        }
+        int dataVersion = root.get("DataVersion") instanceof Integer v ? v : 0;
+        int skipped = applyEdits(root, "Inventory", edits.inventory(), edits.snapshot()::getItem, dataVersion)
+            + applyEdits(root, "EnderItems", edits.ender(), edits.snapshot()::getEnderItem, dataVersion);
+        
+        File tmp = new File(file.getParentFile(), file.getName() + ".invviewer.tmp");
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            Nbt.writeCompressed(out, root);
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        cache.remove(playerId);
+        plugin.getLogger().info("Applied " + (edits.inventory().size() + edits.ender().size() - skipped)
+            + " queued offline inventory edits for " + playerId + ".");
+        if (skipped > 0) {
+            plugin.getLogger().warning(skipped + " offline inventory edit(s) for " + playerId
+                + " were not applied: those slots were changed by another edit first.");
+        }
+        return true;
+    }
+    
+    /** A write found the player online: route the edits again from the main thread. */
+    private void handBack(Edits edits) {
+        if (!plugin.isEnabled()) {
+            plugin.getLogger().warning("Dropped offline inventory edits for " + edits.snapshot().getPlayerId()
+                + ": they are online and the plugin is shutting down.");
+            return;
+        }
+        Bukkit.getScheduler().runTask(plugin, () -> queueEdits(edits));
+    }
+    
+    /**
+     * Replace the edited slots in one item list. A slot that no longer holds what the
+     * view's snapshot showed (another view's edit got there first) is left alone.
+     * @return number of edits skipped
+     */
+    private int applyEdits(Map<String, Object> root, String key, Map<Integer, ItemStack> edits,
+                           IntFunction<ItemStack> original, int dataVersion) throws IOException {
+        if (edits.isEmpty()) {
+            return 0;
+        }
+        Nbt.NbtList list = root.get(key) instanceof Nbt.NbtList existing ? existing : new Nbt.NbtList((byte) 10, new ArrayList<>());
+        Map<Integer, Map<String, Object>> bySlot = new HashMap<>();
+        for (Map<String, Object> entry : compounds(list)) {
+            bySlot.put(slotOf(entry), entry);
+        }
+        
+        int skipped = 0;
+        for (Map.Entry<Integer, ItemStack> edit : edits.entrySet()) {
+            int slot = edit.getKey();
+            Map<String, Object> current = bySlot.get(slot);
+            if (!sameItem(current == null ? null : toItem(current, dataVersion), original.apply(slot))) {
+                skipped++;
+                continue;
+            }
+            if (current != null) {
+                list.values.removeIf(value -> value == current);
+            }
+            ItemStack item = edit.getValue();
+            if (item == null || item.getType().isAir()) {
+                continue;
+            }
+            Map<String, Object> compound = Nbt.readCompressed(item.serializeAsBytes());
+            compound.remove("DataVersion");
+            compound.put("Slot", (byte) slot);
+            list.values.add(compound);
+        }
+        root.put(key, list);
+        return skipped;
+    }
+    
+    /**
+     * Apply edits to an online player's inventory and ender chest. Slots they changed
+     * since the snapshot are left alone and reported.
+     */
+    private void applyLive(Player player, Edits edits) {
+        int skipped = 0;
+        for (Map.Entry<Integer, ItemStack> edit : edits.inventory().entrySet()) {
+            int index = edit.getKey();
+            if (sameItem(player.getInventory().getItem(index), edits.snapshot().getItem(index))) {
+                player.getInventory().setItem(index, edit.getValue());
+            } else {
+                skipped++;
+            }
+        }
+        for (Map.Entry<Integer, ItemStack> edit : edits.ender().entrySet()) {
+            int slot = edit.getKey();
+            if (sameItem(player.getEnderChest().getItem(slot), edits.snapshot().getEnderItem(slot))) {
+                player.getEnderChest().setItem(slot, edit.getValue());
+            } else {
+                skipped++;
+            }
+        }
+        plugin.markTargetDirty(player, InventorySession.Widget.ITEMS);
+        if (skipped > 0) {
+            plugin.getLogger().warning(skipped + " offline inventory edit(s) for " + player.getName()
+                + " were not applied: those slots changed after they logged in.");
+        }
+    }
+    
+    private static boolean sameItem(ItemStack a, ItemStack b) {
+        boolean aEmpty = a == null || a.getType().isAir();
+        boolean bEmpty = b == null || b.getType().isAir();
+        return aEmpty || bEmpty ? aEmpty == bEmpty : a.equals(b);
+    }
+    
+    // ── Logins ──
+    
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        Future<?> write;
+        synchronized (this) {
+            // From here on, new edits are held for their join instead of written
+            loggingIn.add(event.getUniqueId());
+            write = pendingWrites.remove(event.getUniqueId());
+        }
+        if (write == null) {
+            return;
+        }
+        try {
+            write.get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            plugin.getLogger().warning("Queued inventory edits for " + event.getName() + " did not finish before login: " + e.getMessage());
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER,
+                Component.text("Your inventory is being updated, please try again in a moment."));
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLoginResult(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            release(event.getUniqueId());
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onLogin(PlayerLoginEvent event) {
+        if (event.getResult() != PlayerLoginEvent.Result.ALLOWED) {
+            release(event.getPlayer().getUniqueId());
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onJoin(PlayerJoinEvent event) {
+        List<Edits> held;
+        synchronized (this) {
+            loggingIn.remove(event.getPlayer().getUniqueId());
+            held = heldEdits.remove(event.getPlayer().getUniqueId());
+        }
+        if (held != null) {
+            held.forEach(edits -> applyLive(event.getPlayer(), edits));
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onConnectionClose(PlayerConnectionCloseEvent event) {
+        // Covers clients that drop between pre-login and join (e.g. during configuration)
+        release(event.getPlayerUniqueId());
+    }
+    
+    /** Their login was refused or abandoned: write anything held for them to their file after all. */
+    private synchronized void release(UUID playerId) {
+        loggingIn.remove(playerId);
+        List<Edits> held = heldEdits.remove(playerId);
+        if (held != null) {
+            held.forEach(this::submitWrite);
+        }
+    }
+    
+    public void shutdown() {
+        synchronized (this) {
+            heldEdits.values().forEach(held -> held.forEach(this::submitWrite));
+            heldEdits.clear();
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Offline inventory writes did not finish in time.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /** A parsed snapshot of an offline player's inventory and ender chest. */
+    public static class OfflineInventory {
+        private final UUID playerId;
+        private final ItemStack[] contents;
+        private final ItemStack[] enderChest;
+        private final long lastModified;
+        
+        OfflineInventory(UUID playerId, ItemStack[] contents, ItemStack[] enderChest, long lastModified) {
+            this.playerId = playerId;
+            this.contents = contents;
+            this.enderChest = enderChest;
+            this.lastModified = lastModified;
+        }
+        
+        public UUID getPlayerId() {
+            return playerId;
+        }
+        
+        /** Copy of the item at a contents index (see the constants above), or null. */
+        public ItemStack getItem(int index) {
+            return contents[index] == null ? null : contents[index].clone();
+        }
+        
+        public ItemStack getEnderItem(int slot) {
+            return enderChest[slot] == null ? null : enderChest[slot].clone();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.kingdomcraft.invviewer;
+
+import com.kingdomcraft.invviewer.OfflineInventoryStore.OfflineInventory;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.*;
+
+/**
+ * A snapshot view of an offline player's inventory or ender chest, using the same
+ * layout as the live view. Read-only unless editing is allowed, in which case changes
+ * to the main inventory and ender chest are queued as a write to the player's file
+ * when the view closes (or applied to their live inventory if they have logged in).
+ */
+public class OfflineInventoryView {
+    
+    private final Player viewer;
+    private final String targetName;
+    private final OfflineInventory data;
+    private final boolean editable;
+    private final Inventory viewInventory;
+    
+    // Changed slots so far: player inventory index (0-35) / ender chest slot → new item
+    private final Map<Integer, ItemStack> inventoryEdits = new HashMap<>();
+    private final Map<Integer, ItemStack> enderEdits = new HashMap<>();
+    private boolean showingEnderChest = false;
+    
+    public OfflineInventoryView(Player viewer, String targetName, OfflineInventory data, boolean editable) {
+        this.viewer = viewer;
+        this.targetName = targetName;
+        this.data = data;
+        this.editable = editable;
+        this.viewInventory = Bukkit.createInventory(null, 54,
+            Component.text("Viewing: ", NamedTextColor.DARK_GRAY)
+                .append(Component.text(targetName, NamedTextColor.GOLD, TextDecoration.BOLD))
+                .append(editable
+                    ? Component.text(" (OFFLINE, EDIT)", NamedTextColor.YELLOW, TextDecoration.BOLD)
+                    : Component.text(" (OFFLINE)", NamedTextColor.GRAY, TextDecoration.BOLD)));
+    }
+    
+    public void open() {
+        drawInventory();
+        viewer.openInventory(viewInventory);
+    }
+    
+    /** Switch between the inventory and the ender chest, keeping edits made so far. */
+    public void toggleEnderChest() {
+        captureEdits();
+        if (showingEnderChest) {
+            drawInventory();
+        } else {
+            drawEnderChest();
+        }
+    }
+    
+    private void drawInventory() {
+        showingEnderChest = false;
+        viewInventory.clear();
+        for (int i = 9; i < 36; i++) {
+            viewInventory.setItem(i - 9, inventoryItem(i));
+        }
+        for (int i = 0; i < 9; i++) {
+            viewInventory.setItem(27 + i, inventoryItem(i));
+        }
+        viewInventory.setItem(36, InventorySession.SEPARATOR);
+        viewInventory.setItem(37, orPlaceholder(data.getItem(OfflineInventoryStore.HELMET), InventorySession.EMPTY_HELMET));
+        viewInventory.setItem(38, orPlaceholder(data.getItem(OfflineInventoryStore.CHESTPLATE), InventorySession.EMPTY_CHESTPLATE));
+        viewInventory.setItem(39, orPlaceholder(data.getItem(OfflineInventoryStore.LEGGINGS), InventorySession.EMPTY_LEGGINGS));
+        viewInventory.setItem(40, orPlaceholder(data.getItem(OfflineInventoryStore.BOOTS), InventorySession.EMPTY_BOOTS));
+        viewInventory.setItem(41, InventorySession.SEPARATOR);
+        viewInventory.setItem(42, orPlaceholder(data.getItem(OfflineInventoryStore.OFFHAND), InventorySession.EMPTY_OFFHAND));
+        for (int slot = 43; slot < 53; slot++) {
+            viewInventory.setItem(slot, InventorySession.SEPARATOR);
+        }
+        viewInventory.setItem(45, createButton(Material.ENDER_CHEST, "View Ender Chest", NamedTextColor.DARK_PURPLE));
+        viewInventory.setItem(53, InventorySession.CLOSE_BUTTON);
+    }
+    
+    private void drawEnderChest() {
+        showingEnderChest = true;
+        viewInventory.clear();
+        for (int slot = 0; slot < OfflineInventoryStore.ENDER_SIZE; slot++) {
+            viewInventory.setItem(slot, enderItem(slot));
+        }
+        for (int slot = 27; slot < 53; slot++) {
+            viewInventory.setItem(slot, InventorySession.SEPARATOR);
+        }
+        viewInventory.setItem(45, createButton(Material.CHEST, "Back to Inventory", NamedTextColor.GOLD));
+        viewInventory.setItem(53, InventorySession.CLOSE_BUTTON);
+    }
+    
+    private ItemStack inventoryItem(int index) {
+        return inventoryEdits.containsKey(index) ? inventoryEdits.get(index) : data.getItem(index);
+    }
+    
+    private ItemStack enderItem(int slot) {
+        return enderEdits.containsKey(slot) ? enderEdits.get(slot) : data.getEnderItem(slot);
+    }
+    
+    private static ItemStack orPlaceholder(ItemStack item, ItemStack placeholder) {
+        return item != null && item.getType() != Material.AIR ? item : placeholder;
+    }
+    
+    private static ItemStack createButton(Material material, String name, NamedTextColor color) {
+        ItemStack button = new ItemStack(material);
+        ItemMeta meta = button.getItemMeta();
+        meta.displayName(Component.text(name, color, TextDecoration.BOLD));
+        button.setItemMeta(meta);
+        return button;
+    }
+    
+    // ── Editing ──
+    
+    /** Whether a view slot holds the player's items (as opposed to decoration). */
+    public boolean isContentSlot(int slot) {
+        return showingEnderChest ? slot < OfflineInventoryStore.ENDER_SIZE : slot < 36;
+    }
+    
+    /** Record what differs from the snapshot in the slots currently shown. */
+    private void captureEdits() {
+        if (!editable) {
+            return;
+        }
+        if (showingEnderChest) {
+            for (int slot = 0; slot < OfflineInventoryStore.ENDER_SIZE; slot++) {
+                recordEdit(enderEdits, slot, data.getEnderItem(slot), viewInventory.getItem(slot));
+            }
+        } else {
+            for (int slot = 0; slot < 36; slot++) {
+                int index = slot < 27 ? slot + 9 : slot - 27;
+                recordEdit(inventoryEdits, index, data.getItem(index), viewInventory.getItem(slot));
+            }
+        }
+    }
+    
+    private static void recordEdit(Map<Integer, ItemStack> edits, int key, ItemStack original, ItemStack now) {
+        boolean same = now == null || now.getType().isAir() ? original == null : now.equals(original);
+        if (same) {
+            edits.remove(key);
+        } else {
+            edits.put(key, now == null || now.getType().isAir() ? null : now.clone());
+        }
+    }
+    
+    /**
+     * Called once the view has closed. Queues the edits, if any.
+     * @return number of slots queued for writing
+     */
+    public int finish(OfflineInventoryStore store) {
+        if (!editable) {
+            return 0;
+        }
+        captureEdits();
+        int changed = inventoryEdits.size() + enderEdits.size();
+        if (changed > 0) {
+            store.queueEdits(data, new HashMap<>(inventoryEdits), new HashMap<>(enderEdits));
+        }
+        return changed;
+    }
+    
+    public Player getViewer() {
+        return viewer;
+    }
+    
+    public String getTargetName() {
+        return targetName;
+    }
+    
+    public UUID getTargetId() {
+        return data.getPlayerId();
+    }
+    
+    public boolean isEditable() {
+        return editable;
+    }
+    
+    public Inventory getViewInventory() {
+        return viewInventory;
+    }
+}
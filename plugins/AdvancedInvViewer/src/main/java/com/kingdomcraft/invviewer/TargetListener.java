@@ -0,0 +1,146 @@
+package com.kingdomcraft.invviewer;
+
+import com.kingdomcraft.invviewer.InventorySession.Widget;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.entity.EntityPotionEffectEvent;
+import org.bukkit.event.entity.EntityRegainHealthEvent;
+import org.bukkit.event.entity.FoodLevelChangeEvent;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.player.*;
+
+/**
+ * Marks sessions dirty when something about their target changes, so sessions are
+ * only refreshed when there's something new to show. Only the widgets the event
+ * can affect are marked.
+ */
+public class TargetListener implements Listener {
+    
+    private final AdvancedInvViewer plugin;
+    
+    public TargetListener(AdvancedInvViewer plugin) {
+        this.plugin = plugin;
+    }
+    
+    private void changed(HumanEntity entity, Widget... widgets) {
+        if (entity instanceof Player player) {
+            plugin.markTargetDirty(player, widgets);
+        }
+    }
+    
+    private void itemsChanged(HumanEntity entity) {
+        changed(entity, Widget.ITEMS);
+    }
+    
+    // ── Inventory ──
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onClick(InventoryClickEvent event) {
+        itemsChanged(event.getWhoClicked());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onDrag(InventoryDragEvent event) {
+        itemsChanged(event.getWhoClicked());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onDrop(PlayerDropItemEvent event) {
+        itemsChanged(event.getPlayer());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPickup(EntityPickupItemEvent event) {
+        if (event.getEntity() instanceof Player player) {
+            itemsChanged(player);
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onSwapHands(PlayerSwapHandItemsEvent event) {
+        itemsChanged(event.getPlayer());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onConsume(PlayerItemConsumeEvent event) {
+        itemsChanged(event.getPlayer());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemDamage(PlayerItemDamageEvent event) {
+        itemsChanged(event.getPlayer());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onItemBreak(PlayerItemBreakEvent event) {
+        itemsChanged(event.getPlayer());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlace(BlockPlaceEvent event) {
+        itemsChanged(event.getPlayer());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInteract(PlayerInteractEvent event) {
+        // Buckets, spawn eggs, bone meal, etc.
+        if (event.hasItem()) {
+            itemsChanged(event.getPlayer());
+        }
+    }
+    
+    // ── Vitals and stats ──
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onDamage(EntityDamageEvent event) {
+        if (event.getEntity() instanceof Player player) {
+            changed(player, Widget.VITALS, Widget.STATS);
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onRegain(EntityRegainHealthEvent event) {
+        if (event.getEntity() instanceof Player player) {
+            changed(player, Widget.VITALS, Widget.STATS);
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onFood(FoodLevelChangeEvent event) {
+        changed(event.getEntity(), Widget.VITALS, Widget.STATS);
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPotion(EntityPotionEffectEvent event) {
+        if (event.getEntity() instanceof Player player) {
+            changed(player, Widget.EFFECTS);
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onLevel(PlayerLevelChangeEvent event) {
+        changed(event.getPlayer(), Widget.STATS);
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onGameMode(PlayerGameModeChangeEvent event) {
+        changed(event.getPlayer(), Widget.STATS);
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onFlight(PlayerToggleFlightEvent event) {
+        changed(event.getPlayer(), Widget.STATS);
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onRespawn(PlayerRespawnEvent event) {
+        changed(event.getPlayer(), Widget.VALUES);
+    }
+}
@@ -0,0 +1,179 @@
+package com.kingdomcraft.invviewer;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+/**
+ * Paged list of a player's recent slot changes, newest first. Shows a snapshot of the
+ * timeline taken when it was opened.
+ */
+public class TimelineView {
+    
+    static final int PER_PAGE = 45;
+    static final int PREVIOUS_SLOT = 45;
+    static final int BACK_SLOT = 49;
+    static final int NEXT_SLOT = 53;
+    
+    private final Player viewer;
+    private final Player target;
+    private final InventoryTimeline entries;
+    private final Inventory viewInventory;
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss");
+    private int page = 0;
+    
+    public TimelineView(Player viewer, Player target, InventoryTimeline timeline) {
+        this.viewer = viewer;
+        this.target = target;
+        this.entries = timeline.snapshot();
+        this.viewInventory = Bukkit.createInventory(null, 54,
+            Component.text("Timeline: ", NamedTextColor.DARK_GRAY)
+                .append(Component.text(target.getName(), NamedTextColor.GOLD, TextDecoration.BOLD)));
+    }
+    
+    public void open() {
+        render();
+        viewer.openInventory(viewInventory);
+    }
+    
+    public int getPageCount() {
+        return Math.max(1, (entries.size() + PER_PAGE - 1) / PER_PAGE);
+    }
+    
+    /** Move by {@code delta} pages, staying in range. */
+    public void turnPage(int delta) {
+        int turned = Math.max(0, Math.min(getPageCount() - 1, page + delta));
+        if (turned != page) {
+            page = turned;
+            render();
+        }
+    }
+    
+    private void render() {
+        viewInventory.clear();
+        long now = System.currentTimeMillis();
+        int first = page * PER_PAGE;
+        for (int i = 0; i < PER_PAGE && first + i < entries.size(); i++) {
+            viewInventory.setItem(i, createEntry(first + i, now));
+        }
+        if (entries.size() == 0) {
+            viewInventory.setItem(22, createEmptyNotice());
+        }
+        
+        for (int slot = PER_PAGE; slot < 54; slot++) {
+            viewInventory.setItem(slot, InventorySession.SEPARATOR);
+        }
+        if (page > 0) {
+            viewInventory.setItem(PREVIOUS_SLOT, createButton(Material.ARROW, "Previous Page"));
+        }
+        if (page < getPageCount() - 1) {
+            viewInventory.setItem(NEXT_SLOT, createButton(Material.ARROW, "Next Page"));
+        }
+        viewInventory.setItem(BACK_SLOT, createBackButton());
+    }
+    
+    private ItemStack createEntry(int age, long now) {
+        Material before = entries.getBeforeType(age);
+        Material after = entries.getAfterType(age);
+        Material icon = after != null ? after : before != null ? before : Material.BARRIER;
+        
+        ItemStack item = new ItemStack(icon);
+        ItemMeta meta = item.getItemMeta();
+        meta.displayName(Component.text(slotName(entries.getSlot(age)), NamedTextColor.YELLOW, TextDecoration.BOLD));
+        
+        List<Component> lore = new ArrayList<>();
+        long time = entries.getTime(age);
+        lore.add(Component.text(timeFormat.format(new Date(time)), NamedTextColor.GRAY)
+            .append(Component.text(" (" + (now - time) / 1000 + "s ago)", NamedTextColor.DARK_GRAY)));
+        if (entries.isDataChange(age)) {
+            lore.add(Component.text(describe(after, entries.getAfterAmount(age)), NamedTextColor.WHITE));
+            lore.add(Component.text("Item details changed", NamedTextColor.AQUA));
+        } else {
+            lore.add(Component.text("Before: ", NamedTextColor.RED)
+                .append(Component.text(describe(before, entries.getBeforeAmount(age)), NamedTextColor.WHITE)));
+            lore.add(Component.text("After: ", NamedTextColor.GREEN)
+                .append(Component.text(describe(after, entries.getAfterAmount(age)), NamedTextColor.WHITE)));
+        }
+        meta.lore(lore);
+        item.setItemMeta(meta);
+        return item;
+    }
+    
+    private static String describe(Material type, int amount) {
+        if (type == null) {
+            return "empty";
+        }
+        return amount + "x " + type.name().toLowerCase(Locale.ROOT).replace('_', ' ');
+    }
+    
+    /** Name of a live view slot, as laid out by {@link InventorySession}. */
+    private static String slotName(int slot) {
+        if (slot < 27) {
+            return "Inventory " + (slot + 1);
+        }
+        if (slot < 36) {
+            return "Hotbar " + (slot - 26);
+        }
+        return switch (slot) {
+            case 37 -> "Helmet";
+            case 38 -> "Chestplate";
+            case 39 -> "Leggings";
+            case 40 -> "Boots";
+            case 42 -> "Offhand";
+            default -> "Slot " + slot;
+        };
+    }
+    
+    private ItemStack createEmptyNotice() {
+        ItemStack notice = new ItemStack(Material.PAPER);
+        ItemMeta meta = notice.getItemMeta();
+        meta.displayName(Component.text("No changes recorded", NamedTextColor.GRAY, TextDecoration.ITALIC));
+        List<Component> lore = new ArrayList<>();
+        lore.add(Component.text("Changes are recorded while", NamedTextColor.GRAY));
+        lore.add(Component.text(target.getName() + "'s inventory is being viewed", NamedTextColor.GRAY));
+        meta.lore(lore);
+        notice.setItemMeta(meta);
+        return notice;
+    }
+    
+    private static ItemStack createButton(Material material, String name) {
+        ItemStack button = new ItemStack(material);
+        ItemMeta meta = button.getItemMeta();
+        meta.displayName(Component.text(name, NamedTextColor.YELLOW, TextDecoration.BOLD));
+        button.setItemMeta(meta);
+        return button;
+    }
+    
+    private ItemStack createBackButton() {
+        ItemStack back = new ItemStack(Material.CHEST);
+        ItemMeta meta = back.getItemMeta();
+        meta.displayName(Component.text("Back to Live View", NamedTextColor.GREEN, TextDecoration.BOLD));
+        List<Component> lore = new ArrayList<>();
+        lore.add(Component.text("Page " + (page + 1) + "/" + getPageCount(), NamedTextColor.GRAY));
+        lore.add(Component.text(entries.size() + " change(s) recorded", NamedTextColor.GRAY));
+        meta.lore(lore);
+        back.setItemMeta(meta);
+        return back;
+    }
+    
+    public Player getViewer() {
+        return viewer;
+    }
+    
+    public Player getTarget() {
+        return target;
+    }
+    
+    public Inventory getViewInventory() {
+        return viewInventory;
+    }
+}
@@ -3,36 +3,53 @@ package com.kingdomcraft;
 import com.kingdomcraft.commands.*;
 import com.kingdomcraft.data.CharacterData;
 import com.kingdomcraft.data.PlaceData;
+import com.kingdomcraft.data.storage.Storage;
 import com.kingdomcraft.discord.BridgeManager;
 import com.kingdomcraft.discord.DiscordWebhook;
+import com.kingdomcraft.listeners.CampfireIndex;
+import com.kingdomcraft.listeners.CharacterStorageListener;
 import com.kingdomcraft.listeners.ChatSyncListener;
 import com.kingdomcraft.listeners.DeathListener;
 import com.kingdomcraft.listeners.DetailsListener;
+import com.kingdomcraft.listeners.EffectsBudget;
 import com.kingdomcraft.listeners.JoinLeaveListener;
+import com.kingdomcraft.listeners.SeatManager;
 import com.kingdomcraft.listeners.TabListListener;
+import com.kingdomcraft.npc.NPCChunkListener;
 import com.kingdomcraft.npc.NPCListener;
 import com.kingdomcraft.npc.NPCManager;
 import com.kingdomcraft.recipes.RecipeManager;
+import com.kingdomcraft.world.LimboWorld;
+import org.bukkit.entity.Player;
+import org.bukkit.event.HandlerList;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.util.UUID;
+
 public class KingdomCraft extends JavaPlugin {
+    private Storage storage;
     private CharacterData characterData;
     private PlaceData placeData;
     private DiscordWebhook discordWebhook;
     private BridgeManager bridgeManager;
     private NPCManager npcManager;
     private RecipeManager recipeManager;
+    private LimboWorld limboWorld;
+    private SeatManager seatManager;
 
     @Override
     public void onEnable() {
         // Save default config
         saveDefaultConfig();
 
+        // Open storage backend (json or sqlite)
+        storage = new Storage(this);
+
         // Initialize character data
-        characterData = new CharacterData(this);
+        characterData = new CharacterData(this, storage);
 
         // Initialize place data
-        placeData = new PlaceData(this);
+        placeData = new PlaceData(this, storage);
 
         // Initialize Discord webhook
         discordWebhook = new DiscordWebhook(this);
@@ -40,34 +57,50 @@ public class KingdomCraft extends JavaPlugin {
         // Initialize HTTP bridge to Discord bot (replaces RCON)
         bridgeManager = new BridgeManager(this);
 
+        // Optional void world for dead players (created when first needed)
+        limboWorld = new LimboWorld(this);
+
         // Initialize NPC manager
-        npcManager = new NPCManager(this);
+        npcManager = new NPCManager(this, storage);
 
         // Register custom recipes
         recipeManager = new RecipeManager(this);
         recipeManager.registerRecipes();
 
         // Register listeners
-        DeathListener deathListener = new DeathListener(this);
-        getServer().getPluginManager().registerEvents(deathListener, this);
+        getServer().getPluginManager().registerEvents(new DeathListener(this), this);
+        getServer().getPluginManager().registerEvents(new CharacterStorageListener(this), this);
         getServer().getPluginManager().registerEvents(new ChatSyncListener(this), this);
         getServer().getPluginManager().registerEvents(new JoinLeaveListener(this), this);
         getServer().getPluginManager().registerEvents(new NPCListener(this, npcManager), this);
+        getServer().getPluginManager().registerEvents(new NPCChunkListener(this, npcManager), this);
 
         // Tab list
         TabListListener tabListListener = new TabListListener(this);
         getServer().getPluginManager().registerEvents(tabListListener, this);
-        getServer().getScheduler().runTaskTimer(this, tabListListener::updateAll, 100L, 1200L);
+        // Catches place changes and deaths; only players whose footer changed are sent anything
+        getServer().getScheduler().runTaskTimer(this, tabListListener::updateAll, 100L, 100L);
 
         // Details — small immersive features
-        DetailsListener detailsListener = new DetailsListener(this);
+        seatManager = new SeatManager(this);
+        getServer().getPluginManager().registerEvents(seatManager, this);
+        seatManager.start();
+        CampfireIndex campfireIndex = new CampfireIndex();
+        getServer().getPluginManager().registerEvents(campfireIndex, this);
+        campfireIndex.indexLoadedChunks();
+        DetailsListener detailsListener = new DetailsListener(this, campfireIndex, new EffectsBudget(this),
+                seatManager);
         getServer().getPluginManager().registerEvents(detailsListener, this);
 
         // Campfire healing tick (every 3 seconds = 60 ticks)
         getServer().getScheduler().runTaskTimer(this, detailsListener::tickCampfireHealing, 100L, 60L);
 
-        // Lock dead players to sky position every 5 ticks
-        getServer().getScheduler().runTaskTimer(this, deathListener::lockDeadPlayers, 20L, 5L);
+        // Players already online after a reload — death confinement only tracks players it saw join
+        for (Player online : getServer().getOnlinePlayers()) {
+            UUID playerId = online.getUniqueId();
+            characterData.loadPlayerAsync(playerId).thenRun(() ->
+                    getServer().getScheduler().runTask(this, () -> characterData.refreshOnlineDead(playerId)));
+        }
 
         // Register commands
         registerCommands();
@@ -75,11 +108,8 @@ public class KingdomCraft extends JavaPlugin {
         getLogger().info("KingdomCraft has been enabled!");
         getLogger().info("Year 1835 — Character system and death mechanics active.");
 
-        // Respawn NPCs that may have despawned
-        getServer().getScheduler().runTaskLater(this, () -> {
-            npcManager.respawnAll();
-            getLogger().info("Travel NPCs checked/respawned.");
-        }, 40L);
+        // Check NPCs in chunks that are already loaded; the rest are checked as their chunks load
+        getServer().getScheduler().runTask(this, npcManager::reconcileLoadedChunks);
 
         // Notify Discord that server is online
         if (discordWebhook.isEnabled()) {
@@ -94,19 +124,33 @@ public class KingdomCraft extends JavaPlugin {
 
     @Override
     public void onDisable() {
+        // Stop death confinement first so limbo can be emptied
+        HandlerList.unregisterAll(this);
+        if (limboWorld != null) {
+            limboWorld.shutdown();
+        }
+
+        if (seatManager != null) {
+            seatManager.shutdown();
+        }
+
         // Notify Discord that server is stopping
         if (discordWebhook != null && discordWebhook.isEnabled()) {
             discordWebhook.sendServerStatus("stop");
         }
 
         if (characterData != null) {
-            characterData.save();
+            characterData.shutdown();
         }
 
         if (placeData != null) {
             placeData.save();
         }
 
+        if (storage != null) {
+            storage.close();
+        }
+
         if (discordWebhook != null) {
             discordWebhook.shutdown();
         }
@@ -158,4 +202,8 @@ public class KingdomCraft extends JavaPlugin {
     public NPCManager getNpcManager() {
         return npcManager;
     }
+
+    public LimboWorld getLimboWorld() {
+        return limboWorld;
+    }
 }
@@ -14,6 +14,7 @@ import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
+import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
 
 public class JoinPlaceCommand implements CommandExecutor {
@@ -61,7 +62,9 @@ public class JoinPlaceCommand implements CommandExecutor {
             return true;
         }
 
-        if (place.getTeleports().isEmpty()) {
+        // One snapshot of the spawn points, so the check and the pick see the same list
+        List<Place.SpawnPoint> teleports = place.getTeleports();
+        if (teleports.isEmpty()) {
             player.sendMessage(Component.text("That place has no spawn points set.").color(NamedTextColor.RED));
             return true;
         }
@@ -109,8 +112,7 @@ public class JoinPlaceCommand implements CommandExecutor {
         }
 
         // Pick random teleport
-        Place.SpawnPoint sp = place.getTeleports().get(
-                ThreadLocalRandom.current().nextInt(place.getTeleports().size()));
+        Place.SpawnPoint sp = teleports.get(ThreadLocalRandom.current().nextInt(teleports.size()));
         World world = Bukkit.getWorld(sp.getWorld());
         if (world == null) world = Bukkit.getWorlds().get(0);
         Location loc = new Location(world, sp.getX(), sp.getY(), sp.getZ(), sp.getYaw(), 0);
@@ -119,10 +121,8 @@ public class JoinPlaceCommand implements CommandExecutor {
         pd.setCurrentPlaceName(place.getName());
         pd.setCurrentPlaceType(place.getType());
         pd.setDead(false);
-        pd.setSavedInventory(null);
-        pd.setSavedArmor(null);
-        pd.setSavedOffhand(null);
-        plugin.getCharacterData().save();
+        pd.clearSavedInventory();
+        plugin.getCharacterData().markDirty(player.getUniqueId());
 
         // Teleport and set survival
         player.teleport(loc);
@@ -156,10 +156,8 @@ public class JoinPlaceCommand implements CommandExecutor {
         pd.setCurrentPlaceName("Refugee");
         pd.setCurrentPlaceType("refugee");
         pd.setDead(false);
-        pd.setSavedInventory(null);
-        pd.setSavedArmor(null);
-        pd.setSavedOffhand(null);
-        plugin.getCharacterData().save();
+        pd.clearSavedInventory();
+        plugin.getCharacterData().markDirty(player.getUniqueId());
 
         Location spawn = Bukkit.getWorlds().get(0).getSpawnLocation();
         player.teleport(spawn);
@@ -2,66 +2,378 @@ package com.kingdomcraft.data;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.kingdomcraft.data.storage.BlobStore;
+import com.kingdomcraft.data.storage.CharacterStore;
+import com.kingdomcraft.data.storage.Storage;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.GameMode;
 import org.bukkit.entity.Player;
-import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.java.JavaPlugin;
-import org.bukkit.util.io.BukkitObjectInputStream;
-import org.bukkit.util.io.BukkitObjectOutputStream;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.io.*;
-import java.lang.reflect.Type;
 import java.util.*;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Character records. Only players that are online (or quit recently) are kept
+ * in memory — records load during pre-login and unload some time after quit.
+ * Persistence is delegated to the configured {@link CharacterStore}.
+ */
 public class CharacterData {
+    private static final int MIGRATION_BATCH_SIZE = 500;
+
     private final JavaPlugin plugin;
     private final Gson gson;
-    private final File dataFile;
-
-    private Map<UUID, PlayerData> playerData;
-
-    public CharacterData(JavaPlugin plugin) {
+    private final CharacterStore store;
+    private final BlobStore blobStore;
+    private final InventoryCodec inventoryCodec;
+    private final File legacyFile;
+
+    // Loaded records (online + recently quit players)
+    private final Map<UUID, PlayerData> playerData;
+
+    // Write-behind: copies of records changed since the last flush, taken on the main thread
+    // so the writer never serializes a record that is being changed. Holding the copy (not
+    // just the id) means an unload between markDirty and flush can't lose it.
+    private final Map<UUID, PlayerData> dirtyRecords = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    // Death inventories encoded by markDead, by hash, until the writer stores them as blobs
+    private final Map<String, byte[]> pendingBlobs = new ConcurrentHashMap<>();
+    private BukkitTask flushTask;
+    private BukkitTask blobGcTask;
+
+    // Online players whose character is dead — the only ones death confinement has to watch
+    private final Set<UUID> onlineDead = ConcurrentHashMap.newKeySet();
+
+    public CharacterData(JavaPlugin plugin, Storage storage) {
         this.plugin = plugin;
         this.gson = new GsonBuilder().setPrettyPrinting().create();
-        this.dataFile = new File(plugin.getDataFolder(), "characters.json");
-        this.playerData = new HashMap<>();
-        load();
+        this.store = storage.getCharacterStore();
+        this.blobStore = storage.getBlobStore();
+        this.inventoryCodec = new InventoryCodec(plugin);
+        this.legacyFile = new File(plugin.getDataFolder(), "characters.json");
+        this.playerData = new ConcurrentHashMap<>();
+        migrateLegacyFile();
+        startWriteBehind();
+        startBlobGc();
     }
 
-    public void load() {
-        if (!dataFile.exists()) {
-            plugin.getDataFolder().mkdirs();
-            save();
-            return;
+    // ── Store I/O ──
+
+    private PlayerData readRecord(UUID playerId) {
+        // Shares the write lock so a load never observes a half-written record
+        synchronized (writeLock) {
+            PlayerData pd = store.load(playerId);
+            if (pd == null) return new PlayerData(playerId);
+            if (pd.hasInlineInventory()) {
+                moveInlineInventoryToBlob(pd);
+            }
+            return pd;
         }
+    }
 
-        try (Reader reader = new FileReader(dataFile)) {
-            Type type = new TypeToken<Map<UUID, PlayerData>>(){}.getType();
-            Map<UUID, PlayerData> loaded = gson.fromJson(reader, type);
-            if (loaded != null) {
-                this.playerData = loaded;
+    /**
+     * Records saved before the blob store carried their death inventory inline.
+     * Bundle it into a blob as-is (no item decoding) and rewrite the record once.
+     */
+    private void moveInlineInventoryToBlob(PlayerData pd) {
+        String hash = blobStore.put(inventoryCodec.packLegacyDeathInventory(
+                pd.getSavedInventory(), pd.getSavedArmor(), pd.getSavedOffhand()));
+        if (hash == null) return; // keep it inline, revive still reads that
+        pd.clearSavedInventory();
+        pd.setSavedInventoryBlob(hash);
+        store.save(pd);
+    }
+
+    private void writeRecords(Collection<PlayerData> records) {
+        synchronized (writeLock) {
+            store.saveAll(records);
+        }
+    }
+
+    /**
+     * Move a pre-shard characters.json into the store. Runs once — the old
+     * file is renamed afterwards so it is kept as a backup but never read again.
+     *
+     * The file is streamed one record at a time and written in batches, so a large
+     * file never has to fit in memory at once. A record that fails to parse is
+     * reported and skipped; unknown fields are ignored.
+     */
+    private void migrateLegacyFile() {
+        if (!legacyFile.exists() || legacyFile.length() == 0) return;
+
+        int migrated = 0;
+        int failed = 0;
+        List<PlayerData> batch = new ArrayList<>();
+        try (JsonReader reader = new JsonReader(new BufferedReader(new FileReader(legacyFile)))) {
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+            } else {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String key = reader.nextName();
+                    // Parse just this record's subtree; a bad record doesn't derail the reader
+                    JsonElement element = JsonParser.parseReader(reader);
+                    try {
+                        PlayerData pd = gson.fromJson(element, PlayerData.class);
+                        if (pd == null || pd.getPlayerId() == null) {
+                            throw new JsonParseException("missing playerId");
+                        }
+                        batch.add(pd);
+                        migrated++;
+                    } catch (Exception e) {
+                        failed++;
+                        plugin.getLogger().warning("Skipping unreadable character " + key
+                                + " in characters.json: " + e.getMessage());
+                    }
+                    if (batch.size() >= MIGRATION_BATCH_SIZE) {
+                        writeRecords(batch);
+                        batch.clear();
+                    }
+                }
+                reader.endObject();
             }
+            writeRecords(batch);
+            plugin.getLogger().info("Migrated " + migrated + " characters from characters.json"
+                    + (failed > 0 ? " (" + failed + " skipped)" : "") + ".");
         } catch (Exception e) {
-            plugin.getLogger().severe("Failed to load character data: " + e.getMessage());
+            // Malformed JSON past this point: keep what was read. The file is still moved
+            // aside so a restart can't replay it over records changed since.
+            writeRecords(batch);
+            plugin.getLogger().severe("Failed to migrate character data after " + migrated
+                    + " records: " + e.getMessage());
             e.printStackTrace();
         }
+
+        File backup = new File(plugin.getDataFolder(), "characters.json.migrated");
+        if (!legacyFile.renameTo(backup)) {
+            plugin.getLogger().warning("Could not rename characters.json after migration.");
+        }
     }
 
+    // ── Load / unload ──
+
+    /**
+     * Load a player's record into memory. Safe to call off the main thread
+     * (used from AsyncPlayerPreLoginEvent).
+     */
+    public void loadPlayer(UUID playerId) {
+        getPlayerData(playerId);
+    }
+
+    /**
+     * Load a player's record on a background thread, for players who are already
+     * online without having gone through pre-login (plugin reload).
+     */
+    public CompletableFuture<PlayerData> loadPlayerAsync(UUID playerId) {
+        PlayerData loaded = playerData.get(playerId);
+        if (loaded != null) return CompletableFuture.completedFuture(loaded);
+        CompletableFuture<PlayerData> future = new CompletableFuture<>();
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                future.complete(getPlayerData(playerId));
+            } catch (RuntimeException e) {
+                plugin.getLogger().severe("Failed to load character " + playerId + ": " + e.getMessage());
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Drop a player's record from memory if they are still offline.
+     * Pending changes stay queued for the background writer.
+     */
+    public void unloadPlayer(UUID playerId) {
+        if (Bukkit.getPlayer(playerId) != null) return;
+        playerData.remove(playerId);
+    }
+
+    /**
+     * Write every loaded and pending record to disk immediately. Prefer
+     * {@link #markDirty(UUID)} from gameplay code — this is for shutdown.
+     */
     public void save() {
-        try (Writer writer = new FileWriter(dataFile)) {
-            gson.toJson(playerData, writer);
-        } catch (Exception e) {
-            plugin.getLogger().severe("Failed to save character data: " + e.getMessage());
-            e.printStackTrace();
+        synchronized (writeLock) {
+            Map<UUID, PlayerData> toWrite = new HashMap<>();
+            playerData.forEach((id, pd) -> toWrite.put(id, pd.copy()));
+            toWrite.putAll(drainDirty());
+            writePendingBlobs(toWrite.values(), true);
+            writeRecords(toWrite.values());
+        }
+    }
+
+    // ── Write-behind ──
+
+    /**
+     * Flag a player's record as changed. The background writer coalesces all
+     * changes made within one save interval into a single write per player.
+     * Call once the change is complete: the record is copied as it is now.
+     */
+    public void markDirty(UUID playerId) {
+        PlayerData pd = playerData.get(playerId);
+        if (pd == null) return;
+        refreshOnlineDead(playerId);
+        if (flushTask == null) {
+            List<PlayerData> record = List.of(pd.copy());
+            writePendingBlobs(record, true);
+            writeRecords(record);
+            return;
+        }
+        dirtyRecords.put(playerId, pd.copy());
+    }
+
+    private void startWriteBehind() {
+        long intervalSeconds = plugin.getConfig().getLong("storage.save-interval-seconds", 5);
+        if (intervalSeconds <= 0) return; // write-behind disabled, every change saves immediately
+
+        long intervalTicks = intervalSeconds * 20L;
+        flushTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::flush,
+                intervalTicks, intervalTicks);
+    }
+
+    private Map<UUID, PlayerData> drainDirty() {
+        Map<UUID, PlayerData> drained = new HashMap<>();
+        for (UUID id : dirtyRecords.keySet()) {
+            PlayerData pd = dirtyRecords.remove(id);
+            if (pd != null) drained.put(id, pd);
         }
+        return drained;
     }
 
+    private void flush() {
+        // Drain and write under the lock: a reload in between then waits for the
+        // fresh record. A mutation racing with this write re-queues the record and
+        // gets picked up on the next interval.
+        synchronized (writeLock) {
+            Map<UUID, PlayerData> drained = drainDirty();
+            writePendingBlobs(drained.values(), false);
+            if (!drained.isEmpty()) writeRecords(drained.values());
+        }
+    }
+
+    /**
+     * Store the death inventories queued by markDead, before the records that reference
+     * them are written. A blob that fails to write is kept inline instead — in the records
+     * about to be written, and in the live record (on the main thread) so later writes
+     * keep it too.
+     */
+    private void writePendingBlobs(Collection<PlayerData> records, boolean onMainThread) {
+        for (Map.Entry<String, byte[]> entry : pendingBlobs.entrySet()) {
+            String hash = entry.getKey();
+            byte[] bundle = entry.getValue();
+            if (blobStore.put(bundle) != null) {
+                pendingBlobs.remove(hash, bundle);
+                continue;
+            }
+
+            String[] inline = inventoryCodec.unpackDeathInventory(bundle);
+            for (PlayerData pd : records) {
+                if (hash.equals(pd.getSavedInventoryBlob())) setInlineInventory(pd, inline);
+            }
+            if (onMainThread) {
+                pendingBlobs.remove(hash, bundle);
+                inlineLiveRecords(hash, inline);
+            } else {
+                // Stays queued (revive still reads it from here) until the live record has it inline
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    pendingBlobs.remove(hash, bundle);
+                    inlineLiveRecords(hash, inline);
+                });
+            }
+        }
+    }
+
+    private void inlineLiveRecords(String hash, String[] inline) {
+        for (PlayerData pd : playerData.values()) {
+            if (hash.equals(pd.getSavedInventoryBlob())) {
+                setInlineInventory(pd, inline);
+                markDirty(pd.getPlayerId());
+            }
+        }
+    }
+
+    private static void setInlineInventory(PlayerData pd, String[] inline) {
+        pd.clearSavedInventory();
+        pd.setSavedInventory(inline[0]);
+        pd.setSavedArmor(inline[1]);
+        pd.setSavedOffhand(inline[2]);
+    }
+
+    /**
+     * Stop the background tasks and flush synchronously. Call from onDisable.
+     */
+    public void shutdown() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        if (blobGcTask != null) {
+            blobGcTask.cancel();
+            blobGcTask = null;
+        }
+        save();
+    }
+
+    // ── Blob garbage collection ──
+
+    private void startBlobGc() {
+        long intervalMinutes = plugin.getConfig().getLong("storage.blob-gc-interval-minutes", 360);
+        if (intervalMinutes <= 0) return;
+
+        long intervalTicks = intervalMinutes * 60L * 20L;
+        blobGcTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::collectBlobGarbage,
+                intervalTicks, intervalTicks);
+    }
+
+    /**
+     * Delete death inventory blobs no record references any more (revived players,
+     * new characters). Blobs younger than the grace period are kept, which covers
+     * a death recorded while the scan was running.
+     */
+    private void collectBlobGarbage() {
+        long graceMillis = plugin.getConfig().getLong("storage.blob-gc-grace-minutes", 60) * 60_000L;
+
+        Set<String> live = new HashSet<>();
+        store.forEach(pd -> addBlobRef(live, pd));
+        // In-memory records may be ahead of the store
+        playerData.values().forEach(pd -> addBlobRef(live, pd));
+        dirtyRecords.values().forEach(pd -> addBlobRef(live, pd));
+        live.addAll(pendingBlobs.keySet());
+
+        int removed = blobStore.sweep(live, graceMillis);
+        if (removed > 0) {
+            plugin.getLogger().info("Removed " + removed + " unused inventory blobs.");
+        }
+    }
+
+    private static void addBlobRef(Set<String> live, PlayerData pd) {
+        if (pd.getSavedInventoryBlob() != null) live.add(pd.getSavedInventoryBlob());
+    }
+
+    /**
+     * A player's record, reading it from the store if it isn't loaded. Online players
+     * are loaded during pre-login, so on the main thread this is a map lookup.
+     */
     public PlayerData getPlayerData(UUID playerId) {
-        return playerData.computeIfAbsent(playerId, k -> new PlayerData(playerId));
+        PlayerData pd = playerData.get(playerId);
+        if (pd != null) return pd;
+
+        // Read outside the map so a slow load doesn't block other players' lookups.
+        // A record unloaded before its last change was flushed is still queued.
+        PlayerData pending = dirtyRecords.get(playerId);
+        PlayerData loaded = pending != null ? pending.copy() : readRecord(playerId);
+        PlayerData raced = playerData.putIfAbsent(playerId, loaded);
+        return raced != null ? raced : loaded;
     }
 
     // ── Death handling ──
@@ -96,16 +408,46 @@ public class CharacterData {
         pd.setDeathYaw(loc.getYaw());
         pd.setDeathPitch(loc.getPitch());
 
-        // Save inventory as base64
-        pd.setSavedInventory(itemArrayToBase64(player.getInventory().getContents()));
-        pd.setSavedArmor(itemArrayToBase64(player.getInventory().getArmorContents()));
-        pd.setSavedOffhand(itemToBase64(player.getInventory().getItemInOffHand()));
+        // Save inventory to the blob store; the record only keeps the hash. The bundle is
+        // encoded here but written by the background writer, just before the record.
+        pd.clearSavedInventory();
+        byte[] bundle = inventoryCodec.encodeDeathInventory(
+                player.getInventory().getContents(),
+                player.getInventory().getArmorContents(),
+                player.getInventory().getItemInOffHand());
+        String hash = BlobStore.hashOf(bundle);
+        pendingBlobs.put(hash, bundle);
+        pd.setSavedInventoryBlob(hash);
 
         // Save XP
         pd.setSavedXpLevel(player.getLevel());
         pd.setSavedXpProgress(player.getExp());
 
-        save();
+        markDirty(player.getUniqueId());
+    }
+
+    // ── Online dead set ──
+
+    /**
+     * Re-check whether an online player belongs in the dead set. Called from
+     * {@link #markDirty(UUID)} after every change and when a player joins.
+     */
+    public void refreshOnlineDead(UUID playerId) {
+        PlayerData pd = playerData.get(playerId);
+        if (pd != null && pd.isDead() && Bukkit.getPlayer(playerId) != null) {
+            onlineDead.add(playerId);
+        } else {
+            onlineDead.remove(playerId);
+        }
+    }
+
+    public void removeOnlineDead(UUID playerId) {
+        onlineDead.remove(playerId);
+    }
+
+    /** Online players whose character is dead. Live view — don't modify. */
+    public Set<UUID> getOnlineDeadPlayers() {
+        return Collections.unmodifiableSet(onlineDead);
     }
 
     /**
@@ -138,25 +480,24 @@ public class CharacterData {
 
         // Get death location
         Location deathLoc = getDeathLocation(player.getUniqueId());
+        InventoryCodec.DeathInventory saved = loadSavedInventory(pd);
+
+        // Mark as alive first so death confinement lets the teleport below through
+        pd.setDead(false);
+        pd.clearSavedInventory();
+        markDirty(player.getUniqueId());
 
         // Restore inventory
         player.getInventory().clear();
-        if (pd.getSavedInventory() != null) {
-            ItemStack[] contents = base64ToItemArray(pd.getSavedInventory());
-            if (contents != null) {
-                player.getInventory().setContents(contents);
+        if (saved != null) {
+            if (saved.getContents() != null) {
+                player.getInventory().setContents(saved.getContents());
             }
-        }
-        if (pd.getSavedArmor() != null) {
-            ItemStack[] armor = base64ToItemArray(pd.getSavedArmor());
-            if (armor != null) {
-                player.getInventory().setArmorContents(armor);
+            if (saved.getArmor() != null) {
+                player.getInventory().setArmorContents(saved.getArmor());
             }
-        }
-        if (pd.getSavedOffhand() != null) {
-            ItemStack offhand = base64ToItem(pd.getSavedOffhand());
-            if (offhand != null) {
-                player.getInventory().setItemInOffHand(offhand);
+            if (saved.getOffhand() != null) {
+                player.getInventory().setItemInOffHand(saved.getOffhand());
             }
         }
 
@@ -174,16 +515,31 @@ public class CharacterData {
         player.setFlying(false);
         player.setAllowFlight(false);
 
-        // Mark as alive
-        pd.setDead(false);
-        pd.setSavedInventory(null);
-        pd.setSavedArmor(null);
-        pd.setSavedOffhand(null);
-        save();
-
         return true;
     }
 
+    /**
+     * Read a dead player's saved inventory — from the blob store, or inline for a
+     * record whose blob could not be written.
+     */
+    private InventoryCodec.DeathInventory loadSavedInventory(PlayerData pd) {
+        if (pd.getSavedInventoryBlob() != null) {
+            byte[] bundle = pendingBlobs.get(pd.getSavedInventoryBlob());
+            if (bundle == null) bundle = blobStore.get(pd.getSavedInventoryBlob());
+            if (bundle == null) {
+                plugin.getLogger().warning("Saved inventory blob " + pd.getSavedInventoryBlob()
+                        + " for " + pd.getPlayerId() + " is missing.");
+                return null;
+            }
+            return inventoryCodec.decodeDeathInventory(bundle);
+        }
+        if (!pd.hasInlineInventory()) return null;
+        return new InventoryCodec.DeathInventory(
+                pd.getSavedInventory() == null ? null : inventoryCodec.decodeArray(pd.getSavedInventory()),
+                pd.getSavedArmor() == null ? null : inventoryCodec.decodeArray(pd.getSavedArmor()),
+                pd.getSavedOffhand() == null ? null : inventoryCodec.decodeItem(pd.getSavedOffhand()));
+    }
+
     /**
      * Create a new character — clears death state, does NOT restore items.
      */
@@ -195,68 +551,7 @@ public class CharacterData {
         pd.setCharacterEthnicity(ethnicity);
         pd.setCharacterGender(gender);
         // Player stays dead until they /joinplace
-        pd.setSavedInventory(null);
-        pd.setSavedArmor(null);
-        pd.setSavedOffhand(null);
-        save();
-    }
-
-    // ── Base64 serialization helpers ──
-
-    private String itemArrayToBase64(ItemStack[] items) {
-        try {
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            BukkitObjectOutputStream dataOutput = new BukkitObjectOutputStream(outputStream);
-            dataOutput.writeInt(items.length);
-            for (ItemStack item : items) {
-                dataOutput.writeObject(item);
-            }
-            dataOutput.close();
-            return Base64.getEncoder().encodeToString(outputStream.toByteArray());
-        } catch (Exception e) {
-            plugin.getLogger().warning("Failed to serialize inventory: " + e.getMessage());
-            return null;
-        }
-    }
-
-    private ItemStack[] base64ToItemArray(String data) {
-        try {
-            ByteArrayInputStream inputStream = new ByteArrayInputStream(Base64.getDecoder().decode(data));
-            BukkitObjectInputStream dataInput = new BukkitObjectInputStream(inputStream);
-            int size = dataInput.readInt();
-            ItemStack[] items = new ItemStack[size];
-            for (int i = 0; i < size; i++) {
-                items[i] = (ItemStack) dataInput.readObject();
-            }
-            dataInput.close();
-            return items;
-        } catch (Exception e) {
-            plugin.getLogger().warning("Failed to deserialize inventory: " + e.getMessage());
-            return null;
-        }
-    }
-
-    private String itemToBase64(ItemStack item) {
-        try {
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            BukkitObjectOutputStream dataOutput = new BukkitObjectOutputStream(outputStream);
-            dataOutput.writeObject(item);
-            dataOutput.close();
-            return Base64.getEncoder().encodeToString(outputStream.toByteArray());
-        } catch (Exception e) {
-            return null;
-        }
-    }
-
-    private ItemStack base64ToItem(String data) {
-        try {
-            ByteArrayInputStream inputStream = new ByteArrayInputStream(Base64.getDecoder().decode(data));
-            BukkitObjectInputStream dataInput = new BukkitObjectInputStream(inputStream);
-            ItemStack item = (ItemStack) dataInput.readObject();
-            dataInput.close();
-            return item;
-        } catch (Exception e) {
-            return null;
-        }
+        pd.clearSavedInventory();
+        markDirty(playerId);
     }
 }
@@ -0,0 +1,271 @@
+package com.kingdomcraft.data;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.util.io.BukkitObjectInputStream;
+
+import java.io.*;
+import java.util.Base64;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Encodes saved death inventories.
+ *
+ * Snapshot layout (base64 for storage in JSON):
+ *   byte  format version (FORMAT_V1)
+ *   byte  compression (COMPRESSION_NONE / COMPRESSION_DEFLATE)
+ *   body  int slotCount, then per slot: int length (0 = empty) + Paper ItemStack bytes
+ *
+ * Death inventories are stored as one bundle of three snapshots (see {@link DeathInventory}).
+ *
+ * Blobs written before this format (Java serialization via BukkitObjectOutputStream) start with
+ * the stream magic 0xACED and are still decoded through the legacy path.
+ */
+public class InventoryCodec {
+    public static final byte FORMAT_V1 = 1;
+    public static final byte COMPRESSION_NONE = 0;
+    public static final byte COMPRESSION_DEFLATE = 1;
+
+    private static final int LEGACY_MAGIC = 0xAC;
+
+    private final JavaPlugin plugin;
+    private final boolean compress;
+
+    public InventoryCodec(JavaPlugin plugin) {
+        this.plugin = plugin;
+        String mode = plugin.getConfig().getString("storage.inventory-compression", "deflate").toLowerCase();
+        if (!mode.equals("deflate") && !mode.equals("none")) {
+            plugin.getLogger().warning("Unknown storage.inventory-compression '" + mode + "', using deflate.");
+            mode = "deflate";
+        }
+        this.compress = mode.equals("deflate");
+    }
+
+    // ── Encode ──
+
+    public String encodeArray(ItemStack[] items) {
+        byte[] bytes = encodeBytes(items);
+        return bytes == null ? null : Base64.getEncoder().encodeToString(bytes);
+    }
+
+    public String encodeItem(ItemStack item) {
+        return encodeArray(new ItemStack[]{item});
+    }
+
+    /** Raw snapshot bytes (version + compression header included). */
+    public byte[] encodeBytes(ItemStack[] items) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.write(FORMAT_V1);
+            out.write(compress ? COMPRESSION_DEFLATE : COMPRESSION_NONE);
+
+            OutputStream body = compress
+                    ? new DeflaterOutputStream(out, new Deflater(Deflater.BEST_SPEED))
+                    : out;
+            try (DataOutputStream data = new DataOutputStream(body)) {
+                data.writeInt(items.length);
+                for (ItemStack item : items) {
+                    if (isEmpty(item)) {
+                        data.writeInt(0);
+                        continue;
+                    }
+                    byte[] itemBytes = item.serializeAsBytes();
+                    data.writeInt(itemBytes.length);
+                    data.write(itemBytes);
+                }
+            }
+            return out.toByteArray();
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to serialize inventory: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // ── Decode ──
+
+    public ItemStack[] decodeArray(String data) {
+        byte[] bytes = decodeBase64(data);
+        return bytes == null ? null : decode(bytes, true);
+    }
+
+    public ItemStack decodeItem(String data) {
+        byte[] bytes = decodeBase64(data);
+        ItemStack[] items = bytes == null ? null : decode(bytes, false);
+        return items != null && items.length > 0 ? items[0] : null;
+    }
+
+    /** Decode raw snapshot bytes holding an item array. */
+    public ItemStack[] decodeBytes(byte[] bytes) {
+        return decode(bytes, true);
+    }
+
+    private byte[] decodeBase64(String data) {
+        try {
+            return Base64.getDecoder().decode(data);
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Failed to deserialize inventory: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private ItemStack[] decode(byte[] bytes, boolean legacyArray) {
+        if (bytes.length == 0) return null;
+        if ((bytes[0] & 0xFF) == LEGACY_MAGIC) {
+            return legacyArray ? decodeLegacyArray(bytes) : decodeLegacyItem(bytes);
+        }
+
+        try {
+            if (bytes[0] != FORMAT_V1) {
+                throw new IOException("unknown inventory format " + bytes[0]);
+            }
+            InputStream in = new ByteArrayInputStream(bytes, 2, bytes.length - 2);
+            if (bytes[1] == COMPRESSION_DEFLATE) {
+                in = new InflaterInputStream(in);
+            }
+            try (DataInputStream data = new DataInputStream(in)) {
+                int size = data.readInt();
+                ItemStack[] items = new ItemStack[size];
+                for (int i = 0; i < size; i++) {
+                    int length = data.readInt();
+                    if (length == 0) continue;
+                    byte[] itemBytes = new byte[length];
+                    data.readFully(itemBytes);
+                    items[i] = ItemStack.deserializeBytes(itemBytes);
+                }
+                return items;
+            }
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to deserialize inventory: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Pre-V1 blobs: Java serialization streams. Arrays were written as an int count followed by
+    // that many ItemStacks, single items (offhand) as one ItemStack.
+
+    private ItemStack[] decodeLegacyArray(byte[] bytes) {
+        try (BukkitObjectInputStream dataInput = new BukkitObjectInputStream(new ByteArrayInputStream(bytes))) {
+            int size = dataInput.readInt();
+            ItemStack[] items = new ItemStack[size];
+            for (int i = 0; i < size; i++) {
+                items[i] = (ItemStack) dataInput.readObject();
+            }
+            return items;
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to deserialize legacy inventory: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private ItemStack[] decodeLegacyItem(byte[] bytes) {
+        try (BukkitObjectInputStream dataInput = new BukkitObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return new ItemStack[]{(ItemStack) dataInput.readObject()};
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to deserialize legacy inventory: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // ── Death inventory bundle ──
+    // One blob per death: three length-prefixed snapshots (contents, armor, offhand).
+    // Each section is a plain snapshot as above, so legacy sections decode unchanged.
+
+    /** The three parts of a saved death inventory. Any part may be null if it failed to decode. */
+    public static class DeathInventory {
+        private final ItemStack[] contents;
+        private final ItemStack[] armor;
+        private final ItemStack offhand;
+
+        public DeathInventory(ItemStack[] contents, ItemStack[] armor, ItemStack offhand) {
+            this.contents = contents;
+            this.armor = armor;
+            this.offhand = offhand;
+        }
+
+        public ItemStack[] getContents() { return contents; }
+        public ItemStack[] getArmor() { return armor; }
+        public ItemStack getOffhand() { return offhand; }
+    }
+
+    public byte[] encodeDeathInventory(ItemStack[] contents, ItemStack[] armor, ItemStack offhand) {
+        return pack(encodeBytes(contents), encodeBytes(armor), encodeBytes(new ItemStack[]{offhand}));
+    }
+
+    /**
+     * Bundle the inline base64 fields of an older record without decoding the items.
+     */
+    public byte[] packLegacyDeathInventory(String contents, String armor, String offhand) {
+        return pack(
+                contents == null ? null : decodeBase64(contents),
+                armor == null ? null : decodeBase64(armor),
+                offhand == null ? null : decodeBase64(offhand));
+    }
+
+    /**
+     * Split a bundle back into the inline base64 fields of a record, without decoding
+     * the items. Empty sections are null.
+     */
+    public String[] unpackDeathInventory(byte[] bundle) {
+        String[] inline = new String[3];
+        try (DataInputStream data = new DataInputStream(new ByteArrayInputStream(bundle))) {
+            for (int i = 0; i < inline.length; i++) {
+                int length = data.readInt();
+                if (length == 0) continue;
+                byte[] section = new byte[length];
+                data.readFully(section);
+                inline[i] = Base64.getEncoder().encodeToString(section);
+            }
+        } catch (IOException e) {
+            // Our own bundle from memory; can't be truncated
+            throw new UncheckedIOException(e);
+        }
+        return inline;
+    }
+
+    public DeathInventory decodeDeathInventory(byte[] bundle) {
+        try (DataInputStream data = new DataInputStream(new ByteArrayInputStream(bundle))) {
+            byte[][] sections = new byte[3][];
+            for (int i = 0; i < sections.length; i++) {
+                int length = data.readInt();
+                if (length == 0) continue;
+                sections[i] = new byte[length];
+                data.readFully(sections[i]);
+            }
+            ItemStack[] offhand = sections[2] == null ? null : decode(sections[2], false);
+            return new DeathInventory(
+                    sections[0] == null ? null : decode(sections[0], true),
+                    sections[1] == null ? null : decode(sections[1], true),
+                    offhand != null && offhand.length > 0 ? offhand[0] : null);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to deserialize death inventory: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static byte[] pack(byte[]... sections) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (DataOutputStream data = new DataOutputStream(out)) {
+                for (byte[] section : sections) {
+                    if (section == null) {
+                        data.writeInt(0);
+                        continue;
+                    }
+                    data.writeInt(section.length);
+                    data.write(section);
+                }
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            // ByteArrayOutputStream never throws
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isEmpty(ItemStack item) {
+        return item == null || item.getType() == Material.AIR || item.getAmount() <= 0;
+    }
+}
@@ -1,12 +1,13 @@
 package com.kingdomcraft.data;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class Place {
     private String name;
     private String type; // government, insurgent, community
-    private List<SpawnPoint> teleports;
+    private volatile List<SpawnPoint> teleports;
 
     public Place() {
         this.teleports = new ArrayList<>();
@@ -46,17 +47,23 @@ public class Place {
     public String getType() { return type; }
     public void setType(String type) { this.type = type; }
 
+    // Copy-on-write so places can be read from any thread while staff edit spawns
     public List<SpawnPoint> getTeleports() {
-        if (teleports == null) teleports = new ArrayList<>();
-        return teleports;
+        List<SpawnPoint> current = teleports;
+        return current == null ? List.of() : Collections.unmodifiableList(current);
     }
 
-    public void addTeleport(SpawnPoint sp) {
-        getTeleports().add(sp);
+    public synchronized void addTeleport(SpawnPoint sp) {
+        List<SpawnPoint> updated = new ArrayList<>(getTeleports());
+        updated.add(sp);
+        teleports = updated;
     }
 
-    public boolean removeTeleport(double x, double y, double z) {
-        return getTeleports().removeIf(tp ->
+    public synchronized boolean removeTeleport(double x, double y, double z) {
+        List<SpawnPoint> updated = new ArrayList<>(getTeleports());
+        boolean removed = updated.removeIf(tp ->
             Math.abs(tp.x - x) < 1 && Math.abs(tp.y - y) < 1 && Math.abs(tp.z - z) < 1);
+        if (removed) teleports = updated;
+        return removed;
     }
 }
@@ -1,82 +1,115 @@
 package com.kingdomcraft.data;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
+import com.kingdomcraft.data.storage.DocumentStore;
+import com.kingdomcraft.data.storage.Storage;
 import org.bukkit.plugin.java.JavaPlugin;
 
-import java.io.*;
-import java.lang.reflect.Type;
 import java.util.*;
-import java.util.stream.Collectors;
 
+/**
+ * Places, indexed by name and type. Lookups read an immutable snapshot, so they
+ * need no locks or copies and are safe from any thread; mutations build a new
+ * snapshot and swap it in.
+ */
 public class PlaceData {
     private final JavaPlugin plugin;
-    private final Gson gson;
-    private final File dataFile;
-    private List<Place> places;
+    private final DocumentStore<List<Place>> store;
+    private volatile Snapshot snapshot = Snapshot.of(List.of());
 
-    public PlaceData(JavaPlugin plugin) {
+    public PlaceData(JavaPlugin plugin, Storage storage) {
         this.plugin = plugin;
-        this.gson = new GsonBuilder().setPrettyPrinting().create();
-        this.dataFile = new File(plugin.getDataFolder(), "places.json");
-        this.places = new ArrayList<>();
+        this.store = storage.documents("places", new TypeToken<List<Place>>(){}.getType());
         load();
     }
 
-    public void load() {
-        if (!dataFile.exists()) {
-            plugin.getDataFolder().mkdirs();
+    // ── Snapshot ──
+
+    private static final class Snapshot {
+        final List<Place> all;
+        final Map<String, Place> byName;
+        final Map<String, List<Place>> byType;
+
+        private Snapshot(List<Place> all, Map<String, Place> byName, Map<String, List<Place>> byType) {
+            this.all = all;
+            this.byName = byName;
+            this.byType = byType;
+        }
+
+        static Snapshot of(List<Place> places) {
+            Map<String, Place> byName = new HashMap<>();
+            Map<String, List<Place>> byType = new HashMap<>();
+            for (Place place : places) {
+                // First one wins, like the old linear lookup
+                byName.putIfAbsent(key(place.getName()), place);
+                byType.computeIfAbsent(key(place.getType()), k -> new ArrayList<>()).add(place);
+            }
+            byType.replaceAll((type, list) -> List.copyOf(list));
+            return new Snapshot(List.copyOf(places), Map.copyOf(byName), Map.copyOf(byType));
+        }
+    }
+
+    private static String key(String s) {
+        return s == null ? "" : s.toLowerCase(Locale.ROOT);
+    }
+
+    /** Swap in a new place list. Callers hold the monitor. */
+    private void publish(List<Place> places) {
+        snapshot = Snapshot.of(places);
+    }
+
+    // ── Persistence ──
+
+    public synchronized void load() {
+        if (!store.exists()) {
             save();
             return;
         }
 
-        try (Reader reader = new FileReader(dataFile)) {
-            Type type = new TypeToken<List<Place>>(){}.getType();
-            List<Place> loaded = gson.fromJson(reader, type);
-            if (loaded != null) this.places = loaded;
-        } catch (Exception e) {
-            plugin.getLogger().severe("Failed to load places: " + e.getMessage());
+        List<Place> loaded = store.load();
+        if (loaded != null) {
+            loaded.removeIf(Objects::isNull);
+            publish(loaded);
         }
     }
 
     public void save() {
-        try {
-            plugin.getDataFolder().mkdirs();
-            try (Writer writer = new FileWriter(dataFile)) {
-                gson.toJson(places, writer);
-            }
-        } catch (Exception e) {
-            plugin.getLogger().severe("Failed to save places: " + e.getMessage());
-        }
+        store.save(snapshot.all);
     }
 
+    // ── Lookups (lock-free) ──
+
     public Place getPlace(String name) {
-        return places.stream()
-            .filter(p -> p.getName().equalsIgnoreCase(name))
-            .findFirst().orElse(null);
+        return snapshot.byName.get(key(name));
     }
 
     public List<Place> getPlacesByType(String type) {
-        return places.stream()
-            .filter(p -> p.getType().equalsIgnoreCase(type))
-            .collect(Collectors.toList());
+        return snapshot.byType.getOrDefault(key(type), List.of());
     }
 
+    /** Every place. The list is immutable — copy it before sorting or shuffling. */
     public List<Place> getAllPlaces() {
-        return new ArrayList<>(places);
+        return snapshot.all;
     }
 
-    public boolean addPlace(String name, String type) {
+    // ── Mutations ──
+
+    public synchronized boolean addPlace(String name, String type) {
         if (getPlace(name) != null) return false;
+        List<Place> places = new ArrayList<>(snapshot.all);
         places.add(new Place(name, type.toLowerCase()));
+        publish(places);
         save();
         return true;
     }
 
-    public boolean removePlace(String name) {
+    public synchronized boolean removePlace(String name) {
+        List<Place> places = new ArrayList<>(snapshot.all);
         boolean removed = places.removeIf(p -> p.getName().equalsIgnoreCase(name));
-        if (removed) save();
+        if (removed) {
+            publish(places);
+            save();
+        }
         return removed;
     }
 }
@@ -24,7 +24,10 @@ public class PlayerData {
     private double deathX, deathY, deathZ;
     private float deathYaw, deathPitch;
 
-    // Serialized inventory (base64) — saved on death, restored on revive
+    // Saved death inventory — hash of an InventoryCodec bundle in the blob store,
+    // only read on revive
+    private String savedInventoryBlob;
+    // Older records kept the snapshots inline (base64); moved into a blob on load
     private String savedInventory;
     private String savedArmor;
     private String savedOffhand;
@@ -36,6 +39,35 @@ public class PlayerData {
         this.isDead = false;
     }
 
+    /** An independent copy, for handing the record to another thread. */
+    public PlayerData copy() {
+        PlayerData copy = new PlayerData(playerId);
+        copy.isDead = isDead;
+        copy.characterFirstName = characterFirstName;
+        copy.characterLastName = characterLastName;
+        copy.characterAge = characterAge;
+        copy.characterEthnicity = characterEthnicity;
+        copy.characterGender = characterGender;
+        copy.deathTimestamp = deathTimestamp;
+        copy.lastPlaceName = lastPlaceName;
+        copy.lastPlaceType = lastPlaceType;
+        copy.currentPlaceName = currentPlaceName;
+        copy.currentPlaceType = currentPlaceType;
+        copy.deathWorld = deathWorld;
+        copy.deathX = deathX;
+        copy.deathY = deathY;
+        copy.deathZ = deathZ;
+        copy.deathYaw = deathYaw;
+        copy.deathPitch = deathPitch;
+        copy.savedInventoryBlob = savedInventoryBlob;
+        copy.savedInventory = savedInventory;
+        copy.savedArmor = savedArmor;
+        copy.savedOffhand = savedOffhand;
+        copy.savedXpLevel = savedXpLevel;
+        copy.savedXpProgress = savedXpProgress;
+        return copy;
+    }
+
     public UUID getPlayerId() { return playerId; }
 
     public boolean isDead() { return isDead; }
@@ -91,6 +123,21 @@ public class PlayerData {
     public void setDeathPitch(float deathPitch) { this.deathPitch = deathPitch; }
 
     // Saved inventory
+    public String getSavedInventoryBlob() { return savedInventoryBlob; }
+    public void setSavedInventoryBlob(String hash) { this.savedInventoryBlob = hash; }
+
+    public boolean hasInlineInventory() {
+        return savedInventory != null || savedArmor != null || savedOffhand != null;
+    }
+
+    /** Drop the saved death inventory reference (the blob itself is garbage collected). */
+    public void clearSavedInventory() {
+        savedInventoryBlob = null;
+        savedInventory = null;
+        savedArmor = null;
+        savedOffhand = null;
+    }
+
     public String getSavedInventory() { return savedInventory; }
     public void setSavedInventory(String savedInventory) { this.savedInventory = savedInventory; }
 
@@ -0,0 +1,31 @@
+package com.kingdomcraft.data.storage;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Crash-safe file replacement: write to a temp file, fsync, then rename over the target.
+ * A crash at any point leaves either the old file or the new one — never a truncated mix.
+ */
+final class AtomicFile {
+
+    interface WriterBody {
+        void write(Writer writer) throws IOException;
+    }
+
+    private AtomicFile() {}
+
+    static void write(File target, WriterBody body) throws IOException {
+        File tmp = new File(target.getParentFile(), target.getName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp);
+             Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            body.write(writer);
+            writer.flush();
+            out.getFD().sync();
+        }
+        Files.move(tmp.toPath(), target.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
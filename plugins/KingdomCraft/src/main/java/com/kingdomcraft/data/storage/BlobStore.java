@@ -0,0 +1,116 @@
+package com.kingdomcraft.data.storage;
+
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Set;
+
+/**
+ * Content-addressed blob directory. Each blob is stored once under its SHA-256
+ * ({@code blobs/ab/abcdef....bin}), so identical payloads are deduplicated and a
+ * record only needs to keep the hash.
+ *
+ * Blobs are never deleted on release — {@link #sweep} removes the ones no record
+ * references any more, after a grace period that covers records not yet flushed.
+ */
+public class BlobStore {
+    private final JavaPlugin plugin;
+    private final File dir;
+
+    // put() and the per-file delete in sweep() share this so a blob being
+    // re-referenced can't be deleted underneath the new reference
+    private final Object lock = new Object();
+
+    public BlobStore(JavaPlugin plugin, File dir) {
+        this.plugin = plugin;
+        this.dir = dir;
+        dir.mkdirs();
+    }
+
+    private File blobFile(String hash) {
+        return new File(new File(dir, hash.substring(0, 2)), hash + ".bin");
+    }
+
+    /**
+     * Store a payload and return its hash, or null if the write failed (already logged).
+     */
+    public String put(byte[] data) {
+        String hash = hashOf(data);
+        File file = blobFile(hash);
+        synchronized (lock) {
+            if (file.exists()) {
+                // Already stored — refresh the timestamp so a pending sweep keeps it
+                file.setLastModified(System.currentTimeMillis());
+                return hash;
+            }
+            try {
+                file.getParentFile().mkdirs();
+                File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+                try (FileOutputStream out = new FileOutputStream(tmp)) {
+                    out.write(data);
+                    out.getFD().sync();
+                }
+                Files.move(tmp.toPath(), file.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                return hash;
+            } catch (IOException e) {
+                plugin.getLogger().severe("Failed to write blob " + hash + ": " + e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Read a blob, or null if it is missing or unreadable.
+     */
+    public byte[] get(String hash) {
+        File file = blobFile(hash);
+        if (!file.exists()) return null;
+        try {
+            return Files.readAllBytes(file.toPath());
+        } catch (IOException e) {
+            plugin.getLogger().severe("Failed to read blob " + hash + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Delete every blob not in {@code live} that is older than the grace period.
+     * @return number of blobs removed
+     */
+    public int sweep(Set<String> live, long graceMillis) {
+        File[] buckets = dir.listFiles(File::isDirectory);
+        if (buckets == null) return 0;
+
+        int removed = 0;
+        for (File bucket : buckets) {
+            File[] files = bucket.listFiles((d, name) -> name.endsWith(".bin"));
+            if (files == null) continue;
+            for (File file : files) {
+                String hash = file.getName().substring(0, file.getName().length() - 4);
+                if (live.contains(hash)) continue;
+                synchronized (lock) {
+                    if (System.currentTimeMillis() - file.lastModified() < graceMillis) continue;
+                    if (file.delete()) removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    /** The hash a payload is stored under, without storing it. */
+    public static String hashOf(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
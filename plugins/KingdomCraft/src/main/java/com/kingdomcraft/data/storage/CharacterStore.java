@@ -0,0 +1,38 @@
+package com.kingdomcraft.data.storage;
+
+import com.kingdomcraft.data.PlayerData;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Persistence backend for character records.
+ * Implementations are called from the async writer and pre-login threads, so they must be thread-safe.
+ */
+public interface CharacterStore {
+
+    /** Load a player's record, or null if they have none. */
+    PlayerData load(UUID playerId);
+
+    void save(PlayerData pd);
+
+    /** Save several records at once — in a single transaction where the backend supports it. */
+    default void saveAll(Collection<PlayerData> records) {
+        records.forEach(this::save);
+    }
+
+    /** Visit every stored record. For migrations and maintenance only — never call on the main thread. */
+    void forEach(Consumer<PlayerData> action);
+
+    boolean isEmpty();
+
+    /** UUIDs of every dead player. */
+    List<UUID> findDead();
+
+    /** UUIDs of every player whose current place is {@code placeName} (case-insensitive). */
+    List<UUID> findByPlace(String placeName);
+
+    void close();
+}
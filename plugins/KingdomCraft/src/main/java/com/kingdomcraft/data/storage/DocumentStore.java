@@ -0,0 +1,15 @@
+package com.kingdomcraft.data.storage;
+
+/**
+ * Persistence for a small data set that is always loaded and saved as a whole
+ * (places, travel NPCs).
+ */
+public interface DocumentStore<T> {
+
+    boolean exists();
+
+    /** Load the document, or null if it does not exist or could not be read. */
+    T load();
+
+    void save(T document);
+}
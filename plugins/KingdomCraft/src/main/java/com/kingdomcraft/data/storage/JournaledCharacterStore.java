@@ -0,0 +1,234 @@
+package com.kingdomcraft.data.storage;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.kingdomcraft.data.PlayerData;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Crash-safe front for the per-player JSON files.
+ *
+ * Every save appends one line per changed record to {@code journal.log} and fsyncs once per
+ * batch (group commit), so a death costs a single small append regardless of player count.
+ * A background compaction folds the journal into the per-player files (written atomically)
+ * and then truncates it. On startup the journal is replayed — records are full post-images,
+ * so replaying an entry that was already compacted is harmless.
+ */
+public class JournaledCharacterStore implements CharacterStore {
+    private final JavaPlugin plugin;
+    private final Gson gson;
+    private final JsonCharacterStore snapshot;
+    private final File journalFile;
+    private final long compactThresholdBytes;
+
+    // Journaled but not yet compacted into the snapshot files. Guarded by this. The store
+    // owns these copies: callers never see them, so compaction can't race a change.
+    private final Map<UUID, PlayerData> pending = new HashMap<>();
+    private FileOutputStream journalOut;
+    private Writer journalWriter;
+    private BukkitTask compactTask;
+
+    public JournaledCharacterStore(JavaPlugin plugin, JsonCharacterStore snapshot, File journalFile,
+                                   long compactIntervalSeconds, long compactThresholdBytes) {
+        this.plugin = plugin;
+        this.gson = new Gson();
+        this.snapshot = snapshot;
+        this.journalFile = journalFile;
+        this.compactThresholdBytes = compactThresholdBytes;
+
+        replay();
+        compact();
+        openJournal();
+
+        long intervalTicks = Math.max(1, compactIntervalSeconds) * 20L;
+        compactTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::compact,
+                intervalTicks, intervalTicks);
+    }
+
+    // ── Journal ──
+
+    private void openJournal() {
+        try {
+            journalOut = new FileOutputStream(journalFile, true);
+            journalWriter = new BufferedWriter(new OutputStreamWriter(journalOut, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            plugin.getLogger().severe("Failed to open character journal: " + e.getMessage());
+        }
+    }
+
+    private void closeJournal() {
+        if (journalWriter == null) return;
+        try {
+            journalWriter.close();
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to close character journal: " + e.getMessage());
+        }
+        journalWriter = null;
+        journalOut = null;
+    }
+
+    private void replay() {
+        if (!journalFile.exists()) return;
+
+        int applied = 0;
+        int skipped = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(journalFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                try {
+                    JsonObject entry = JsonParser.parseString(line).getAsJsonObject();
+                    PlayerData pd = gson.fromJson(entry.get("data"), PlayerData.class);
+                    pending.put(pd.getPlayerId(), pd);
+                    applied++;
+                } catch (Exception e) {
+                    // A torn last line from a crash mid-append; everything before it is intact
+                    skipped++;
+                }
+            }
+        } catch (IOException e) {
+            plugin.getLogger().severe("Failed to replay character journal: " + e.getMessage());
+        }
+
+        if (applied > 0 || skipped > 0) {
+            plugin.getLogger().info("Replayed " + applied + " character journal entries"
+                    + (skipped > 0 ? " (" + skipped + " unreadable skipped)" : "") + ".");
+        }
+    }
+
+    /**
+     * Fold pending records into the per-player files, then truncate the journal.
+     * If any file fails to write the journal is kept, so nothing is lost.
+     */
+    public synchronized void compact() {
+        if (pending.isEmpty() && journalFile.length() == 0) return;
+
+        boolean allWritten = true;
+        Iterator<PlayerData> it = pending.values().iterator();
+        while (it.hasNext()) {
+            if (snapshot.write(it.next())) {
+                it.remove();
+            } else {
+                allWritten = false;
+            }
+        }
+        if (!allWritten) return;
+
+        boolean reopen = journalWriter != null;
+        closeJournal();
+        try (FileOutputStream truncate = new FileOutputStream(journalFile, false)) {
+            truncate.getFD().sync();
+        } catch (IOException e) {
+            plugin.getLogger().severe("Failed to truncate character journal: " + e.getMessage());
+        }
+        if (reopen) openJournal();
+    }
+
+    // ── CharacterStore ──
+
+    @Override
+    public synchronized PlayerData load(UUID playerId) {
+        PlayerData pd = pending.get(playerId);
+        return pd != null ? pd.copy() : snapshot.load(playerId);
+    }
+
+    @Override
+    public void save(PlayerData pd) {
+        saveAll(List.of(pd));
+    }
+
+    @Override
+    public synchronized void saveAll(Collection<PlayerData> records) {
+        if (records.isEmpty()) return;
+        if (journalWriter == null) {
+            // Journal unavailable — fall back to writing the files directly
+            records.forEach(snapshot::save);
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        List<PlayerData> journaled = new ArrayList<>(records.size());
+        try {
+            for (PlayerData pd : records) {
+                journaled.add(pd.copy());
+                JsonObject entry = new JsonObject();
+                entry.addProperty("ts", now);
+                entry.add("data", gson.toJsonTree(journaled.get(journaled.size() - 1)));
+                journalWriter.write(gson.toJson(entry));
+                journalWriter.write('\n');
+            }
+            // Group commit: one fsync for the whole batch
+            journalWriter.flush();
+            journalOut.getFD().sync();
+        } catch (IOException e) {
+            plugin.getLogger().severe("Failed to append to character journal: " + e.getMessage());
+            records.forEach(snapshot::save);
+            return;
+        }
+
+        for (PlayerData pd : journaled) {
+            pending.put(pd.getPlayerId(), pd);
+        }
+        if (journalFile.length() >= compactThresholdBytes) {
+            compact();
+        }
+    }
+
+    // Scans read the files and let pending records (newer than their files) take precedence,
+    // so a read never forces a compaction
+
+    @Override
+    public synchronized void forEach(Consumer<PlayerData> action) {
+        snapshot.forEach(pd -> {
+            if (!pending.containsKey(pd.getPlayerId())) action.accept(pd);
+        });
+        pending.values().forEach(pd -> action.accept(pd.copy()));
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return pending.isEmpty() && snapshot.isEmpty();
+    }
+
+    @Override
+    public synchronized List<UUID> findDead() {
+        return withPending(snapshot.findDead(), PlayerData::isDead);
+    }
+
+    @Override
+    public synchronized List<UUID> findByPlace(String placeName) {
+        return withPending(snapshot.findByPlace(placeName), pd -> placeName.equalsIgnoreCase(pd.getCurrentPlaceName()));
+    }
+
+    private List<UUID> withPending(List<UUID> stored, Predicate<PlayerData> matches) {
+        Set<UUID> result = new LinkedHashSet<>(stored);
+        for (PlayerData pd : pending.values()) {
+            if (matches.test(pd)) {
+                result.add(pd.getPlayerId());
+            } else {
+                result.remove(pd.getPlayerId());
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (compactTask != null) {
+            compactTask.cancel();
+            compactTask = null;
+        }
+        compact();
+        closeJournal();
+    }
+}
@@ -0,0 +1,106 @@
+package com.kingdomcraft.data.storage;
+
+import com.google.gson.Gson;
+import com.kingdomcraft.data.PlayerData;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * One JSON file per player under {@code characters/}. Fine for small servers —
+ * lookups by id are cheap, but the find* queries scan every file.
+ */
+public class JsonCharacterStore implements CharacterStore {
+    private final JavaPlugin plugin;
+    private final Gson gson;
+    private final File dir;
+
+    public JsonCharacterStore(JavaPlugin plugin, Gson gson, File dir) {
+        this.plugin = plugin;
+        this.gson = gson;
+        this.dir = dir;
+        dir.mkdirs();
+    }
+
+    private File shardFile(UUID playerId) {
+        return new File(dir, playerId + ".json");
+    }
+
+    @Override
+    public PlayerData load(UUID playerId) {
+        return read(shardFile(playerId));
+    }
+
+    private PlayerData read(File file) {
+        if (!file.exists()) return null;
+        try (Reader reader = new FileReader(file)) {
+            return gson.fromJson(reader, PlayerData.class);
+        } catch (Exception e) {
+            plugin.getLogger().severe("Failed to load character file " + file.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void save(PlayerData pd) {
+        write(pd);
+    }
+
+    /**
+     * Atomically replace a player's file.
+     * @return false if the write failed (already logged)
+     */
+    boolean write(PlayerData pd) {
+        try {
+            AtomicFile.write(shardFile(pd.getPlayerId()), writer -> gson.toJson(pd, writer));
+            return true;
+        } catch (Exception e) {
+            plugin.getLogger().severe("Failed to save character data for " + pd.getPlayerId() + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<PlayerData> action) {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".json"));
+        if (files == null) return;
+        for (File file : files) {
+            PlayerData pd = read(file);
+            if (pd != null) action.accept(pd);
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        String[] names = dir.list((d, name) -> name.endsWith(".json"));
+        return names == null || names.length == 0;
+    }
+
+    @Override
+    public List<UUID> findDead() {
+        return scan(PlayerData::isDead);
+    }
+
+    @Override
+    public List<UUID> findByPlace(String placeName) {
+        return scan(pd -> placeName.equalsIgnoreCase(pd.getCurrentPlaceName()));
+    }
+
+    private List<UUID> scan(Predicate<PlayerData> filter) {
+        List<UUID> result = new ArrayList<>();
+        forEach(pd -> {
+            if (filter.test(pd)) result.add(pd.getPlayerId());
+        });
+        return result;
+    }
+
+    @Override
+    public void close() {
+        // Nothing held open
+    }
+}
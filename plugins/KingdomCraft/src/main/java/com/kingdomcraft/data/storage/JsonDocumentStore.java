@@ -0,0 +1,50 @@
+package com.kingdomcraft.data.storage;
+
+import com.google.gson.Gson;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.*;
+import java.lang.reflect.Type;
+
+/**
+ * Stores a document as a pretty-printed JSON file in the plugin folder.
+ */
+public class JsonDocumentStore<T> implements DocumentStore<T> {
+    private final JavaPlugin plugin;
+    private final Gson gson;
+    private final File file;
+    private final Type type;
+
+    public JsonDocumentStore(JavaPlugin plugin, Gson gson, File file, Type type) {
+        this.plugin = plugin;
+        this.gson = gson;
+        this.file = file;
+        this.type = type;
+    }
+
+    @Override
+    public boolean exists() {
+        return file.exists();
+    }
+
+    @Override
+    public T load() {
+        if (!file.exists()) return null;
+        try (Reader reader = new FileReader(file)) {
+            return gson.fromJson(reader, type);
+        } catch (Exception e) {
+            plugin.getLogger().severe("Failed to load " + file.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void save(T document) {
+        try {
+            file.getParentFile().mkdirs();
+            AtomicFile.write(file, writer -> gson.toJson(document, type, writer));
+        } catch (Exception e) {
+            plugin.getLogger().severe("Failed to save " + file.getName() + ": " + e.getMessage());
+        }
+    }
+}
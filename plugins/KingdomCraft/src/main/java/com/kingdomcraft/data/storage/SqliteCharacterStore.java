@@ -0,0 +1,163 @@
+package com.kingdomcraft.data.storage;
+
+import com.google.gson.Gson;
+import com.kingdomcraft.data.PlayerData;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Character records in an embedded SQLite database. The full record is kept as JSON,
+ * with the fields we query on (dead flag, current place, death time) in indexed columns.
+ */
+public class SqliteCharacterStore implements CharacterStore {
+    private final JavaPlugin plugin;
+    private final Gson gson;
+    private final Connection connection;
+
+    private static final String UPSERT =
+            "INSERT INTO characters (uuid, is_dead, current_place, death_timestamp, data) VALUES (?, ?, ?, ?, ?) "
+            + "ON CONFLICT(uuid) DO UPDATE SET is_dead = excluded.is_dead, current_place = excluded.current_place, "
+            + "death_timestamp = excluded.death_timestamp, data = excluded.data";
+
+    public SqliteCharacterStore(JavaPlugin plugin, Gson gson, Connection connection) throws SQLException {
+        this.plugin = plugin;
+        this.gson = gson;
+        this.connection = connection;
+        createSchema();
+    }
+
+    private void createSchema() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.executeUpdate("CREATE TABLE IF NOT EXISTS characters ("
+                    + "uuid TEXT PRIMARY KEY, "
+                    + "is_dead INTEGER NOT NULL, "
+                    + "current_place TEXT COLLATE NOCASE, "
+                    + "death_timestamp INTEGER NOT NULL, "
+                    + "data TEXT NOT NULL)");
+            st.executeUpdate("CREATE INDEX IF NOT EXISTS idx_characters_dead ON characters (is_dead)");
+            st.executeUpdate("CREATE INDEX IF NOT EXISTS idx_characters_place ON characters (current_place)");
+            st.executeUpdate("CREATE INDEX IF NOT EXISTS idx_characters_death_ts ON characters (death_timestamp)");
+        }
+    }
+
+    @Override
+    public PlayerData load(UUID playerId) {
+        synchronized (connection) {
+            try (PreparedStatement ps = connection.prepareStatement("SELECT data FROM characters WHERE uuid = ?")) {
+                ps.setString(1, playerId.toString());
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? gson.fromJson(rs.getString(1), PlayerData.class) : null;
+                }
+            } catch (Exception e) {
+                plugin.getLogger().severe("Failed to load character data for " + playerId + ": " + e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public void save(PlayerData pd) {
+        saveAll(List.of(pd));
+    }
+
+    @Override
+    public void saveAll(Collection<PlayerData> records) {
+        if (records.isEmpty()) return;
+        synchronized (connection) {
+            try (PreparedStatement ps = connection.prepareStatement(UPSERT)) {
+                connection.setAutoCommit(false);
+                for (PlayerData pd : records) {
+                    ps.setString(1, pd.getPlayerId().toString());
+                    ps.setInt(2, pd.isDead() ? 1 : 0);
+                    ps.setString(3, pd.getCurrentPlaceName());
+                    ps.setLong(4, pd.getDeathTimestamp());
+                    ps.setString(5, gson.toJson(pd));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                plugin.getLogger().severe("Failed to save character data: " + e.getMessage());
+                try {
+                    connection.rollback();
+                } catch (SQLException ignored) {
+                }
+            } finally {
+                try {
+                    connection.setAutoCommit(true);
+                } catch (SQLException ignored) {
+                }
+            }
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<PlayerData> action) {
+        synchronized (connection) {
+            try (Statement st = connection.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT data FROM characters")) {
+                while (rs.next()) {
+                    PlayerData pd = gson.fromJson(rs.getString(1), PlayerData.class);
+                    if (pd != null) action.accept(pd);
+                }
+            } catch (Exception e) {
+                plugin.getLogger().severe("Failed to read character data: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        synchronized (connection) {
+            try (Statement st = connection.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT 1 FROM characters LIMIT 1")) {
+                return !rs.next();
+            } catch (SQLException e) {
+                plugin.getLogger().severe("Failed to query character data: " + e.getMessage());
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public List<UUID> findDead() {
+        return queryIds("SELECT uuid FROM characters WHERE is_dead = 1", null);
+    }
+
+    @Override
+    public List<UUID> findByPlace(String placeName) {
+        return queryIds("SELECT uuid FROM characters WHERE current_place = ?", ps -> ps.setString(1, placeName));
+    }
+
+    private interface Binder {
+        void bind(PreparedStatement ps) throws SQLException;
+    }
+
+    private List<UUID> queryIds(String sql, Binder binder) {
+        List<UUID> result = new ArrayList<>();
+        synchronized (connection) {
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                if (binder != null) binder.bind(ps);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        result.add(UUID.fromString(rs.getString(1)));
+                    }
+                }
+            } catch (SQLException e) {
+                plugin.getLogger().severe("Failed to query character data: " + e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        // The connection is shared and owned by Storage
+    }
+}
@@ -0,0 +1,77 @@
+package com.kingdomcraft.data.storage;
+
+import com.google.gson.Gson;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.lang.reflect.Type;
+import java.sql.*;
+
+/**
+ * Stores a document as a JSON row in the SQLite {@code documents} table.
+ */
+public class SqliteDocumentStore<T> implements DocumentStore<T> {
+    private final JavaPlugin plugin;
+    private final Gson gson;
+    private final Connection connection;
+    private final String name;
+    private final Type type;
+
+    public SqliteDocumentStore(JavaPlugin plugin, Gson gson, Connection connection, String name, Type type) {
+        this.plugin = plugin;
+        this.gson = gson;
+        this.connection = connection;
+        this.name = name;
+        this.type = type;
+    }
+
+    static void createSchema(Connection connection) throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.executeUpdate("CREATE TABLE IF NOT EXISTS documents (name TEXT PRIMARY KEY, data TEXT NOT NULL)");
+        }
+    }
+
+    @Override
+    public boolean exists() {
+        return read() != null;
+    }
+
+    @Override
+    public T load() {
+        String json = read();
+        if (json == null) return null;
+        try {
+            return gson.fromJson(json, type);
+        } catch (Exception e) {
+            plugin.getLogger().severe("Failed to load " + name + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private String read() {
+        synchronized (connection) {
+            try (PreparedStatement ps = connection.prepareStatement("SELECT data FROM documents WHERE name = ?")) {
+                ps.setString(1, name);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getString(1) : null;
+                }
+            } catch (SQLException e) {
+                plugin.getLogger().severe("Failed to load " + name + ": " + e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public void save(T document) {
+        synchronized (connection) {
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO documents (name, data) VALUES (?, ?) ON CONFLICT(name) DO UPDATE SET data = excluded.data")) {
+                ps.setString(1, name);
+                ps.setString(2, gson.toJson(document, type));
+                ps.executeUpdate();
+            } catch (SQLException e) {
+                plugin.getLogger().severe("Failed to save " + name + ": " + e.getMessage());
+            }
+        }
+    }
+}
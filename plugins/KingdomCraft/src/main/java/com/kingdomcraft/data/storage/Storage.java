@@ -0,0 +1,153 @@
+package com.kingdomcraft.data.storage;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.kingdomcraft.data.PlayerData;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.File;
+import java.lang.reflect.Type;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Picks the storage backend from config ({@code storage.backend}) and hands out stores for
+ * characters, places and NPCs.
+ *
+ * json   — plain files in the plugin folder, fine for small servers. Character changes go
+ *          through an append-only journal unless storage.journal.enabled is false.
+ * sqlite — single embedded kingdomcraft.db with indexed character columns
+ *
+ * Large payloads (saved death inventories) go to a content-addressed {@link BlobStore}
+ * under {@code blobs/} regardless of backend.
+ */
+public class Storage {
+    private final JavaPlugin plugin;
+    private final Gson prettyGson = new GsonBuilder().setPrettyPrinting().create();
+    private final Gson compactGson = new Gson();
+
+    private Connection connection; // sqlite only
+    private final CharacterStore characterStore;
+    private final BlobStore blobStore;
+
+    public Storage(JavaPlugin plugin) {
+        this.plugin = plugin;
+        plugin.getDataFolder().mkdirs();
+
+        String backend = plugin.getConfig().getString("storage.backend", "json").toLowerCase();
+        CharacterStore store = null;
+        if (backend.equals("sqlite")) {
+            try {
+                store = openSqlite();
+                plugin.getLogger().info("Using SQLite storage backend.");
+            } catch (Exception e) {
+                plugin.getLogger().severe("Failed to open SQLite storage, falling back to JSON: " + e.getMessage());
+                close();
+            }
+        }
+        if (store == null) {
+            store = openJson();
+        }
+        this.characterStore = store;
+        // Blobs live on disk for every backend; records only hold their hashes
+        this.blobStore = new BlobStore(plugin, new File(plugin.getDataFolder(), "blobs"));
+    }
+
+    private CharacterStore openJson() {
+        JsonCharacterStore files = new JsonCharacterStore(plugin, prettyGson, charactersDir());
+        if (!plugin.getConfig().getBoolean("storage.journal.enabled", true)) return files;
+
+        return new JournaledCharacterStore(plugin, files,
+                new File(charactersDir(), "journal.log"),
+                plugin.getConfig().getLong("storage.journal.compact-interval-seconds", 300),
+                plugin.getConfig().getLong("storage.journal.compact-size-kb", 1024) * 1024L);
+    }
+
+    private File charactersDir() {
+        return new File(plugin.getDataFolder(), "characters");
+    }
+
+    private CharacterStore openSqlite() throws Exception {
+        Class.forName("org.sqlite.JDBC");
+        File dbFile = new File(plugin.getDataFolder(), "kingdomcraft.db");
+        connection = DriverManager.getConnection("jdbc:sqlite:" + dbFile.getAbsolutePath());
+        try (Statement st = connection.createStatement()) {
+            st.execute("PRAGMA journal_mode=WAL");
+            st.execute("PRAGMA synchronous=NORMAL");
+        }
+        SqliteDocumentStore.createSchema(connection);
+
+        SqliteCharacterStore store = new SqliteCharacterStore(plugin, compactGson, connection);
+        importJsonCharacters(store);
+        return store;
+    }
+
+    /**
+     * When switching an existing server from json to sqlite, copy the per-player files
+     * into the fresh database once.
+     */
+    private void importJsonCharacters(SqliteCharacterStore store) {
+        File dir = charactersDir();
+        if (!dir.isDirectory() || !store.isEmpty()) return;
+
+        JsonCharacterStore json = new JsonCharacterStore(plugin, prettyGson, dir);
+        if (json.isEmpty()) return;
+
+        List<PlayerData> batch = new ArrayList<>();
+        int[] count = {0};
+        json.forEach(pd -> {
+            batch.add(pd);
+            count[0]++;
+            if (batch.size() >= 500) {
+                store.saveAll(batch);
+                batch.clear();
+            }
+        });
+        store.saveAll(batch);
+        plugin.getLogger().info("Imported " + count[0] + " characters from JSON files into SQLite.");
+    }
+
+    public CharacterStore getCharacterStore() {
+        return characterStore;
+    }
+
+    public BlobStore getBlobStore() {
+        return blobStore;
+    }
+
+    /**
+     * A store for a small whole-document data set, e.g. "places" or "npcs".
+     * The JSON backend keeps these in {@code <name>.json} as before.
+     */
+    public <T> DocumentStore<T> documents(String name, Type type) {
+        JsonDocumentStore<T> json = new JsonDocumentStore<>(plugin, prettyGson,
+                new File(plugin.getDataFolder(), name + ".json"), type);
+        if (connection == null) return json;
+
+        SqliteDocumentStore<T> sql = new SqliteDocumentStore<>(plugin, compactGson, connection, name, type);
+        // First start on sqlite: carry over the existing JSON file
+        if (!sql.exists() && json.exists()) {
+            T existing = json.load();
+            if (existing != null) sql.save(existing);
+        }
+        return sql;
+    }
+
+    public void close() {
+        if (characterStore != null) {
+            characterStore.close();
+        }
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                plugin.getLogger().warning("Failed to close database: " + e.getMessage());
+            }
+            connection = null;
+        }
+    }
+}
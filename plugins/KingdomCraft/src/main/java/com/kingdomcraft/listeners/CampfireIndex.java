@@ -0,0 +1,170 @@
+package com.kingdomcraft.listeners;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+
+import java.util.*;
+
+/**
+ * Positions of campfires and soul campfires in loaded chunks, so campfire healing
+ * can look at a few chunk buckets instead of reading every block around a player.
+ *
+ * Chunks are scanned through their tile entities when they load (campfires are tile
+ * entities, so this doesn't touch ordinary blocks) and kept up to date from place,
+ * break, burn and explode events. Changes that bypass events (e.g. WorldEdit) are
+ * caught lazily: a stale entry is dropped the first time a lookup finds it.
+ */
+public class CampfireIndex implements Listener {
+    // world → chunk key → packed block keys
+    private final Map<UUID, Map<Long, Set<Long>>> campfires = new HashMap<>();
+
+    public static boolean isCampfire(Material type) {
+        return type == Material.CAMPFIRE || type == Material.SOUL_CAMPFIRE;
+    }
+
+    /** Index every chunk that is already loaded (plugin enable / reload). */
+    public void indexLoadedChunks() {
+        for (World world : Bukkit.getWorlds()) {
+            for (Chunk chunk : world.getLoadedChunks()) {
+                indexChunk(chunk);
+            }
+        }
+    }
+
+    /**
+     * Whether a campfire lies within {@code horizontal} blocks on x/z and {@code vertical}
+     * blocks on y of {@code loc}.
+     */
+    public boolean isNearCampfire(Location loc, int horizontal, int vertical) {
+        Map<Long, Set<Long>> chunks = campfires.get(loc.getWorld().getUID());
+        if (chunks == null || chunks.isEmpty()) return false;
+
+        int x = loc.getBlockX();
+        int y = loc.getBlockY();
+        int z = loc.getBlockZ();
+        for (int cx = (x - horizontal) >> 4; cx <= (x + horizontal) >> 4; cx++) {
+            for (int cz = (z - horizontal) >> 4; cz <= (z + horizontal) >> 4; cz++) {
+                Set<Long> positions = chunks.get(Chunk.getChunkKey(cx, cz));
+                if (positions == null) continue;
+
+                Iterator<Long> it = positions.iterator();
+                while (it.hasNext()) {
+                    long key = it.next();
+                    int bx = Block.getBlockKeyX(key);
+                    int by = Block.getBlockKeyY(key);
+                    int bz = Block.getBlockKeyZ(key);
+                    if (Math.abs(bx - x) > horizontal || Math.abs(by - y) > vertical
+                            || Math.abs(bz - z) > horizontal) {
+                        continue;
+                    }
+                    if (isCampfire(loc.getWorld().getBlockAt(bx, by, bz).getType())) {
+                        return true;
+                    }
+                    // Removed without an event
+                    it.remove();
+                }
+            }
+        }
+        return false;
+    }
+
+    // ── Index maintenance ──
+
+    private void indexChunk(Chunk chunk) {
+        Set<Long> positions = null;
+        for (BlockState state : chunk.getTileEntities(block -> isCampfire(block.getType()), false)) {
+            if (positions == null) positions = new HashSet<>();
+            positions.add(Block.getBlockKey(state.getX(), state.getY(), state.getZ()));
+        }
+
+        Map<Long, Set<Long>> chunks = campfires.computeIfAbsent(chunk.getWorld().getUID(), k -> new HashMap<>());
+        if (positions != null) {
+            chunks.put(chunk.getChunkKey(), positions);
+        } else {
+            chunks.remove(chunk.getChunkKey());
+        }
+    }
+
+    private void add(Block block) {
+        campfires.computeIfAbsent(block.getWorld().getUID(), k -> new HashMap<>())
+                .computeIfAbsent(Chunk.getChunkKey(block.getX() >> 4, block.getZ() >> 4), k -> new HashSet<>())
+                .add(block.getBlockKey());
+    }
+
+    private void remove(Block block) {
+        Map<Long, Set<Long>> chunks = campfires.get(block.getWorld().getUID());
+        if (chunks == null) return;
+        long chunkKey = Chunk.getChunkKey(block.getX() >> 4, block.getZ() >> 4);
+        Set<Long> positions = chunks.get(chunkKey);
+        if (positions != null && positions.remove(block.getBlockKey()) && positions.isEmpty()) {
+            chunks.remove(chunkKey);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        indexChunk(event.getChunk());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        Map<Long, Set<Long>> chunks = campfires.get(event.getWorld().getUID());
+        if (chunks != null) {
+            chunks.remove(event.getChunk().getChunkKey());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlace(BlockPlaceEvent event) {
+        if (isCampfire(event.getBlockPlaced().getType())) {
+            add(event.getBlockPlaced());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBreak(BlockBreakEvent event) {
+        if (isCampfire(event.getBlock().getType())) {
+            remove(event.getBlock());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBurn(BlockBurnEvent event) {
+        if (isCampfire(event.getBlock().getType())) {
+            remove(event.getBlock());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        removeExploded(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        removeExploded(event.blockList());
+    }
+
+    private void removeExploded(List<Block> blocks) {
+        for (Block block : blocks) {
+            if (isCampfire(block.getType())) {
+                remove(block);
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.kingdomcraft.listeners;
+
+import com.kingdomcraft.KingdomCraft;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.UUID;
+
+/**
+ * Loads character records as players connect and unloads them some time after they quit,
+ * so memory scales with online players rather than everyone who ever joined.
+ */
+public class CharacterStorageListener implements Listener {
+    private final KingdomCraft plugin;
+
+    public CharacterStorageListener(KingdomCraft plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+        // Runs off the main thread — the file read never touches the tick
+        plugin.getCharacterData().loadPlayer(event.getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        UUID playerId = event.getPlayer().getUniqueId();
+        long delayTicks = Math.max(0, plugin.getConfig().getLong("storage.unload-delay-seconds", 300)) * 20L;
+        // Kept around for a while so quick reconnects don't reload from disk
+        plugin.getServer().getScheduler().runTaskLater(plugin,
+                () -> plugin.getCharacterData().unloadPlayer(playerId), delayTicks);
+    }
+}
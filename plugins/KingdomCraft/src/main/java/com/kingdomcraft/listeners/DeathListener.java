@@ -15,24 +15,52 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.player.PlayerGameModeChangeEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.event.world.SpawnChangeEvent;
 import org.bukkit.potion.PotionEffect;
 
 import java.time.Duration;
-
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Death handling and confinement. Dead players are kept at the sky position by
+ * watching their own move/teleport/game mode events — only players in
+ * {@link com.kingdomcraft.data.CharacterData#getOnlineDeadPlayers()} are checked.
+ */
 public class DeathListener implements Listener {
+    private static final double SKY_LOCK_RADIUS = 2;
+
     private final KingdomCraft plugin;
+    private final Set<UUID> onlineDead;
+    private Location skyLocation; // cached, reset when the main world's spawn moves
 
     public DeathListener(KingdomCraft plugin) {
         this.plugin = plugin;
+        this.onlineDead = plugin.getCharacterData().getOnlineDeadPlayers();
     }
 
-    /** Sky lock position for dead players. */
+    /** Sky lock position for dead players — the limbo world if enabled, else high above spawn. */
     public Location getSkyLocation() {
-        World world = Bukkit.getWorlds().get(0);
-        Location spawn = world.getSpawnLocation();
-        return new Location(world, spawn.getX(), 500, spawn.getZ(), 0, 0);
+        if (skyLocation == null && plugin.getLimboWorld().isEnabled()) {
+            skyLocation = plugin.getLimboWorld().getHoldLocation();
+        } else if (skyLocation == null) {
+            World world = Bukkit.getWorlds().get(0);
+            Location spawn = world.getSpawnLocation();
+            skyLocation = new Location(world, spawn.getX(), 500, spawn.getZ(), 0, 0);
+        }
+        return skyLocation.clone();
+    }
+
+    @EventHandler
+    public void onSpawnChange(SpawnChangeEvent event) {
+        skyLocation = null;
     }
 
     @EventHandler(priority = EventPriority.HIGHEST)
@@ -68,9 +96,11 @@ public class DeathListener implements Listener {
                 && plugin.getConfig().getBoolean("require-character-creation", true)) {
             pd.setDead(true);
             pd.setDeathTimestamp(0); // no cooldown for first join
-            plugin.getCharacterData().save();
+            plugin.getCharacterData().markDirty(player.getUniqueId());
         }
 
+        plugin.getCharacterData().refreshOnlineDead(player.getUniqueId());
+
         if (pd.isDead()) {
             plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
                 if (player.isOnline()) {
@@ -87,24 +117,66 @@ public class DeathListener implements Listener {
         }
     }
 
-    /** Called from a repeating task to lock dead players at the sky position. */
-    public void lockDeadPlayers() {
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        plugin.getCharacterData().removeOnlineDead(event.getPlayer().getUniqueId());
+    }
+
+    // ── Confinement ──
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onDeadPlayerMove(PlayerMoveEvent event) {
+        if (onlineDead.isEmpty() || !event.hasChangedPosition()) return;
+        Player player = event.getPlayer();
+        if (!onlineDead.contains(player.getUniqueId())) return;
+
+        Location to = event.getTo();
+        if (isNearSky(to)) return;
+
         Location sky = getSkyLocation();
-        for (Player p : Bukkit.getOnlinePlayers()) {
-            if (plugin.getCharacterData().isPlayerDead(p.getUniqueId())) {
-                if (p.getGameMode() != GameMode.SPECTATOR) {
-                    p.setGameMode(GameMode.SPECTATOR);
-                }
-                Location pLoc = p.getLocation();
-                if (Math.abs(pLoc.getX() - sky.getX()) > 2
-                        || Math.abs(pLoc.getY() - sky.getY()) > 2
-                        || Math.abs(pLoc.getZ() - sky.getZ()) > 2) {
-                    p.teleport(sky);
-                }
-            }
+        if (to.getWorld() != sky.getWorld()) {
+            // Can't move across worlds from a move event
+            event.setCancelled(true);
+            player.teleport(sky);
+            return;
+        }
+        sky.setYaw(to.getYaw());
+        sky.setPitch(to.getPitch());
+        event.setTo(sky);
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onDeadPlayerTeleport(PlayerTeleportEvent event) {
+        if (onlineDead.isEmpty() || !onlineDead.contains(event.getPlayer().getUniqueId())) return;
+        // Only the teleport up to the sky position is allowed (spectator menu, /tp, etc. are not)
+        if (!isNearSky(event.getTo())) {
+            event.setCancelled(true);
         }
     }
 
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onDeadPlayerGameModeChange(PlayerGameModeChangeEvent event) {
+        if (event.getNewGameMode() == GameMode.SPECTATOR) return;
+        if (onlineDead.contains(event.getPlayer().getUniqueId())) {
+            event.setCancelled(true);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onDeadPlayerRespawn(PlayerRespawnEvent event) {
+        if (onlineDead.contains(event.getPlayer().getUniqueId())) {
+            event.setRespawnLocation(getSkyLocation());
+        }
+    }
+
+    private boolean isNearSky(Location loc) {
+        Location sky = skyLocation != null ? skyLocation : getSkyLocation();
+        return loc != null && loc.getWorld() == sky.getWorld()
+                && Math.abs(loc.getX() - sky.getX()) <= SKY_LOCK_RADIUS
+                && Math.abs(loc.getY() - sky.getY()) <= SKY_LOCK_RADIUS
+                && Math.abs(loc.getZ() - sky.getZ()) <= SKY_LOCK_RADIUS;
+    }
+
     private void setupDeathMode(Player player) {
         player.teleport(getSkyLocation());
         player.setGameMode(GameMode.SPECTATOR);
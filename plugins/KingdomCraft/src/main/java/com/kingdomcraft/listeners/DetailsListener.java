@@ -27,9 +27,16 @@ import java.util.*;
  */
 public class DetailsListener implements Listener {
     private final KingdomCraft plugin;
+    private final CampfireIndex campfireIndex;
+    private final EffectsBudget effectsBudget;
+    private final SeatManager seatManager;
 
-    public DetailsListener(KingdomCraft plugin) {
+    public DetailsListener(KingdomCraft plugin, CampfireIndex campfireIndex, EffectsBudget effectsBudget,
+                           SeatManager seatManager) {
         this.plugin = plugin;
+        this.campfireIndex = campfireIndex;
+        this.effectsBudget = effectsBudget;
+        this.seatManager = seatManager;
     }
 
     // ── 1. Player heads drop on PvP kill ──
@@ -60,7 +67,9 @@ public class DetailsListener implements Listener {
         if (event.getDamage() < 1.0) return;
 
         Location loc = entity.getLocation().add(0, 1, 0);
-        entity.getWorld().spawnParticle(Particle.DAMAGE_INDICATOR, loc, 8, 0.3, 0.5, 0.3, 0.01);
+        int count = effectsBudget.acquireParticles(loc, 8);
+        if (count == 0) return;
+        entity.getWorld().spawnParticle(Particle.DAMAGE_INDICATOR, loc, count, 0.3, 0.5, 0.3, 0.01);
     }
 
     // ── 3. Lightning strike effect on player kill (small visual, no damage) ──
@@ -71,7 +80,9 @@ public class DetailsListener implements Listener {
         if (killer == null) return;
 
         // Visual-only lightning at death location
-        victim.getWorld().strikeLightningEffect(victim.getLocation());
+        if (effectsBudget.acquireLightning(victim.getLocation())) {
+            victim.getWorld().strikeLightningEffect(victim.getLocation());
+        }
     }
 
     // ── 4. Campfire healing — stand near campfires to slowly heal ──
@@ -86,31 +97,19 @@ public class DetailsListener implements Listener {
             if (player.getGameMode() != GameMode.SURVIVAL) continue;
             if (player.isDead()) continue;
 
-            // Check 3-block radius for campfires
-            Location loc = player.getLocation();
-            for (int dx = -3; dx <= 3; dx++) {
-                for (int dy = -2; dy <= 2; dy++) {
-                    for (int dz = -3; dz <= 3; dz++) {
-                        Block block = loc.getWorld().getBlockAt(
-                                loc.getBlockX() + dx, loc.getBlockY() + dy, loc.getBlockZ() + dz);
-                        if (block.getType() == Material.CAMPFIRE || block.getType() == Material.SOUL_CAMPFIRE) {
-                            // Give 5 seconds of regen I
-                            player.addPotionEffect(new PotionEffect(
-                                    PotionEffectType.REGENERATION, 100, 0, true, false, true));
-                            // Show particles
-                            player.getWorld().spawnParticle(Particle.HEART, 
-                                    player.getLocation().add(0, 2, 0), 1, 0.3, 0.2, 0.3, 0);
-                            return; // Only one campfire heal per tick
-                        }
-                    }
-                }
+            // Campfire within 3 blocks (2 vertically)
+            if (campfireIndex.isNearCampfire(player.getLocation(), 3, 2)) {
+                // Give 5 seconds of regen I
+                player.addPotionEffect(new PotionEffect(
+                        PotionEffectType.REGENERATION, 100, 0, true, false, true));
+                // Show particles
+                player.getWorld().spawnParticle(Particle.HEART,
+                        player.getLocation().add(0, 2, 0), 1, 0.3, 0.2, 0.3, 0);
             }
         }
     }
 
-    // ── 5. Sneak + right-click with empty hand on stair = sit ──
-    private final Set<UUID> sitting = new HashSet<>();
-
+    // ── 5. Sneak + right-click with empty hand on stair/slab = sit ──
     @EventHandler
     public void onInteractSit(PlayerInteractEvent event) {
         if (event.getAction() != Action.RIGHT_CLICK_BLOCK) return;
@@ -119,48 +118,13 @@ public class DetailsListener implements Listener {
         if (player.getInventory().getItemInMainHand().getType() != Material.AIR) return;
 
         Block block = event.getClickedBlock();
-        if (block == null) return;
-
-        String typeName = block.getType().name();
-        if (!typeName.contains("STAIRS")) return;
+        if (block == null || !SeatManager.isSeat(block)) return;
 
         // Already sitting?
-        if (sitting.contains(player.getUniqueId())) return;
+        if (seatManager.isSitting(player)) return;
 
         event.setCancelled(true);
-
-        // Spawn an invisible armor stand to sit on
-        Location sitLoc = block.getLocation().add(0.5, -0.2, 0.5);
-        ArmorStand seat = block.getWorld().spawn(sitLoc, ArmorStand.class, stand -> {
-            stand.setVisible(false);
-            stand.setGravity(false);
-            stand.setMarker(true);
-            stand.setInvulnerable(true);
-            stand.setSmall(true);
-            stand.setPersistent(false);
-        });
-
-        seat.addPassenger(player);
-        sitting.add(player.getUniqueId());
-
-        // Remove seat when player dismounts
-        Bukkit.getScheduler().runTaskTimer(plugin, task -> {
-            if (!seat.isValid() || seat.getPassengers().isEmpty() || !player.isOnline()) {
-                seat.remove();
-                sitting.remove(player.getUniqueId());
-                task.cancel();
-            }
-        }, 20L, 10L);
-    }
-
-    @EventHandler
-    public void onDismount(org.bukkit.event.entity.EntityDismountEvent event) {
-        if (event.getEntity() instanceof Player player) {
-            sitting.remove(player.getUniqueId());
-            if (event.getDismounted() instanceof ArmorStand stand && stand.isMarker()) {
-                stand.remove();
-            }
-        }
+        seatManager.sit(player, block);
     }
 
     // ── 7. Crop trampling prevention — no farmland destruction ──
@@ -0,0 +1,120 @@
+package com.kingdomcraft.listeners;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Caps how many cosmetic particles and lightning effects the plugin sends, so a mob
+ * farm or a mass PvP fight can't turn visual details into a packet storm.
+ *
+ * Limits apply per tick (server wide) and per chunk per second. Effects with no player
+ * in range are skipped, and particle counts shrink as MSPT climbs past the degrade
+ * threshold, reaching zero at the cutoff. Main thread only.
+ */
+public class EffectsBudget {
+    private final int viewRadiusSquared;
+    private final int maxParticlesPerTick;
+    private final int maxParticlesPerChunk;
+    private final int lightningIntervalTicks;
+    private final double degradeMspt;
+    private final double cutoffMspt;
+
+    private int currentTick = -1;
+    private int particlesThisTick;
+    private double loadFactor = 1.0;
+
+    // Per-chunk particle counts for the current one-second window
+    private int windowStart = -1;
+    private final Map<UUID, Map<Long, Integer>> chunkCounts = new HashMap<>();
+
+    private int lastLightningTick = Integer.MIN_VALUE / 2;
+
+    public EffectsBudget(JavaPlugin plugin) {
+        ConfigurationSection config = plugin.getConfig().getConfigurationSection("effects");
+        if (config == null) {
+            config = plugin.getConfig().createSection("effects");
+        }
+        int radius = config.getInt("view-radius", 32);
+        this.viewRadiusSquared = radius * radius;
+        this.maxParticlesPerTick = config.getInt("max-particles-per-tick", 64);
+        this.maxParticlesPerChunk = config.getInt("max-particles-per-chunk-per-second", 32);
+        this.lightningIntervalTicks = config.getInt("lightning-interval-ticks", 40);
+        this.degradeMspt = config.getDouble("degrade-mspt", 40.0);
+        this.cutoffMspt = config.getDouble("cutoff-mspt", 50.0);
+    }
+
+    /**
+     * How many of {@code requested} particles may be spawned at {@code loc}; 0 means skip.
+     * The returned amount is charged against the budget.
+     */
+    public int acquireParticles(Location loc, int requested) {
+        rollTick();
+        if (loadFactor <= 0 || particlesThisTick >= maxParticlesPerTick) return 0;
+        if (!hasViewerNear(loc)) return 0;
+
+        Map<Long, Integer> counts = chunkCounts.computeIfAbsent(loc.getWorld().getUID(), k -> new HashMap<>());
+        long chunkKey = Chunk.getChunkKey(loc.getBlockX() >> 4, loc.getBlockZ() >> 4);
+        int usedInChunk = counts.getOrDefault(chunkKey, 0);
+
+        int allowed = Math.max(1, (int) Math.round(requested * loadFactor));
+        allowed = Math.min(allowed, maxParticlesPerTick - particlesThisTick);
+        allowed = Math.min(allowed, maxParticlesPerChunk - usedInChunk);
+        if (allowed <= 0) return 0;
+
+        particlesThisTick += allowed;
+        counts.put(chunkKey, usedInChunk + allowed);
+        return allowed;
+    }
+
+    /** Whether a lightning effect may be shown at {@code loc} now. Charged if allowed. */
+    public boolean acquireLightning(Location loc) {
+        rollTick();
+        // Lightning is the first thing to go under load
+        if (loadFactor < 1.0) return false;
+        if (currentTick - lastLightningTick < lightningIntervalTicks) return false;
+        if (!hasViewerNear(loc)) return false;
+
+        lastLightningTick = currentTick;
+        return true;
+    }
+
+    private void rollTick() {
+        int tick = Bukkit.getCurrentTick();
+        if (tick == currentTick) return;
+        currentTick = tick;
+        particlesThisTick = 0;
+
+        if (tick - windowStart >= 20 || tick < windowStart) {
+            windowStart = tick;
+            chunkCounts.clear();
+        }
+
+        double mspt = Bukkit.getAverageTickTime();
+        if (mspt <= degradeMspt) {
+            loadFactor = 1.0;
+        } else if (mspt >= cutoffMspt) {
+            loadFactor = 0;
+        } else {
+            loadFactor = (cutoffMspt - mspt) / (cutoffMspt - degradeMspt);
+        }
+    }
+
+    private boolean hasViewerNear(Location loc) {
+        World world = loc.getWorld();
+        for (Player player : world.getPlayers()) {
+            if (player.getLocation().distanceSquared(loc) <= viewRadiusSquared) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,160 @@
+package com.kingdomcraft.listeners;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Tag;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.type.Slab;
+import org.bukkit.entity.ArmorStand;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityDismountEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.EntitiesLoadEvent;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Owns every seat (invisible marker armor stand) players sit on.
+ *
+ * One repeating task checks all seats instead of a task per sit. Seats are tagged so
+ * any left behind by a crash are removed when their chunk's entities load, and all
+ * seats are removed on chunk unload and on shutdown.
+ */
+public class SeatManager implements Listener {
+    private final JavaPlugin plugin;
+    private final NamespacedKey seatKey;
+    // Player → their seat
+    private final Map<UUID, ArmorStand> seats = new HashMap<>();
+    private BukkitTask task;
+
+    public SeatManager(JavaPlugin plugin) {
+        this.plugin = plugin;
+        this.seatKey = new NamespacedKey(plugin, "seat");
+    }
+
+    public void start() {
+        task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 20L, 10L);
+    }
+
+    /** Stairs, or a bottom slab. */
+    public static boolean isSeat(Block block) {
+        Material type = block.getType();
+        if (Tag.STAIRS.isTagged(type)) return true;
+        return Tag.SLABS.isTagged(type)
+                && block.getBlockData() instanceof Slab slab && slab.getType() == Slab.Type.BOTTOM;
+    }
+
+    public boolean isSitting(Player player) {
+        return seats.containsKey(player.getUniqueId());
+    }
+
+    /** Seat the player on the block. */
+    public void sit(Player player, Block block) {
+        Location sitLoc = block.getLocation().add(0.5, -0.2, 0.5);
+        ArmorStand seat = block.getWorld().spawn(sitLoc, ArmorStand.class, stand -> {
+            stand.setVisible(false);
+            stand.setGravity(false);
+            stand.setMarker(true);
+            stand.setInvulnerable(true);
+            stand.setSmall(true);
+            stand.setPersistent(false);
+            stand.getPersistentDataContainer().set(seatKey, PersistentDataType.BYTE, (byte) 1);
+        });
+
+        seat.addPassenger(player);
+        seats.put(player.getUniqueId(), seat);
+    }
+
+    private boolean isSeatEntity(Entity entity) {
+        return entity instanceof ArmorStand && entity.getPersistentDataContainer().has(seatKey, PersistentDataType.BYTE);
+    }
+
+    // ── Cleanup ──
+
+    /** Remove seats whose stand is gone or whose player got off or left. */
+    private void tick() {
+        Iterator<Map.Entry<UUID, ArmorStand>> it = seats.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<UUID, ArmorStand> entry = it.next();
+            ArmorStand seat = entry.getValue();
+            if (!seat.isValid() || seat.getPassengers().isEmpty() || Bukkit.getPlayer(entry.getKey()) == null) {
+                // Out of the map first: removing a stand with a rider fires EntityDismountEvent
+                it.remove();
+                seat.remove();
+            }
+        }
+    }
+
+    private void stand(UUID playerId) {
+        ArmorStand seat = seats.remove(playerId);
+        if (seat != null) {
+            seat.eject();
+            seat.remove();
+        }
+    }
+
+    @EventHandler
+    public void onDismount(EntityDismountEvent event) {
+        if (event.getEntity() instanceof Player player && isSeatEntity(event.getDismounted())) {
+            seats.remove(player.getUniqueId());
+            event.getDismounted().remove();
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        stand(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        Chunk chunk = event.getChunk();
+        World world = chunk.getWorld();
+        // Collect first: eject() fires EntityDismountEvent, whose handler changes the map
+        List<UUID> unloaded = new ArrayList<>();
+        for (Map.Entry<UUID, ArmorStand> entry : seats.entrySet()) {
+            Location loc = entry.getValue().getLocation();
+            if (loc.getWorld() == world && loc.getBlockX() >> 4 == chunk.getX() && loc.getBlockZ() >> 4 == chunk.getZ()) {
+                unloaded.add(entry.getKey());
+            }
+        }
+        unloaded.forEach(this::stand);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntitiesLoad(EntitiesLoadEvent event) {
+        // Seats aren't persistent, but a crash mid-save can still leave one behind
+        for (Entity entity : event.getEntities()) {
+            if (isSeatEntity(entity) && !seats.containsValue(entity)) {
+                entity.remove();
+            }
+        }
+    }
+
+    public void shutdown() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        for (UUID playerId : seats.keySet().toArray(new UUID[0])) {
+            stand(playerId);
+        }
+    }
+}
@@ -1,55 +1,113 @@
 package com.kingdomcraft.listeners;
 
 import com.kingdomcraft.KingdomCraft;
+import com.kingdomcraft.data.PlayerData;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.format.TextDecoration;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 
+import java.util.*;
+
+/**
+ * Tab list header/footer. The header never changes; footers are rendered once per
+ * group (the player's current place) and only rebuilt when the online count changes.
+ * Players are only sent a footer that differs from the last one they got.
+ */
 public class TabListListener implements Listener {
+    private static final Component HEADER = Component.empty()
+        .append(Component.newline())
+        .append(Component.text("CONTINENTS").color(NamedTextColor.WHITE).decorate(TextDecoration.BOLD))
+        .append(Component.newline())
+        .append(Component.text("1835").color(NamedTextColor.DARK_GRAY))
+        .append(Component.newline());
+
+    // Group for players without a place
+    private static final String NO_GROUP = "";
+
     private final KingdomCraft plugin;
 
+    // Rendered footers for the current online count, by group
+    private int renderedOnline = -1;
+    private final Map<String, Component> footers = new HashMap<>();
+    // Footer each player was last sent (compared by identity)
+    private final Map<UUID, Component> lastSent = new HashMap<>();
+    private boolean updateQueued;
+
     public TabListListener(KingdomCraft plugin) {
         this.plugin = plugin;
     }
 
     @EventHandler
     public void onJoin(PlayerJoinEvent event) {
-        // Small delay so player count is accurate
-        plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
-            if (event.getPlayer().isOnline()) {
-                updateTabList(event.getPlayer());
-            }
-        }, 5L);
+        requestUpdate();
     }
 
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        lastSent.remove(event.getPlayer().getUniqueId());
+        // The quitting player still counts as online until this event is over
+        requestUpdate();
+    }
+
+    /** Re-render on the next tick; several requests in one tick collapse into one update. */
+    public void requestUpdate() {
+        if (updateQueued) return;
+        updateQueued = true;
+        plugin.getServer().getScheduler().runTask(plugin, () -> {
+            updateQueued = false;
+            updateAll();
+        });
+    }
+
+    /**
+     * Bring every player's tab list up to date. Cheap when nothing changed: no
+     * components are built and nothing is sent.
+     */
     public void updateAll() {
-        for (Player p : Bukkit.getOnlinePlayers()) {
-            updateTabList(p);
+        Collection<? extends Player> players = Bukkit.getOnlinePlayers();
+        int online = players.size();
+        if (online != renderedOnline) {
+            footers.clear();
+            renderedOnline = online;
         }
-    }
 
-    private void updateTabList(Player player) {
-        int online = Bukkit.getOnlinePlayers().size();
+        Map<String, List<Player>> groups = new HashMap<>();
+        for (Player p : players) {
+            groups.computeIfAbsent(groupOf(p), k -> new ArrayList<>()).add(p);
+        }
+        footers.keySet().retainAll(groups.keySet());
 
-        Component header = Component.empty()
-            .append(Component.newline())
-            .append(Component.text("CONTINENTS").color(NamedTextColor.WHITE).decorate(TextDecoration.BOLD))
-            .append(Component.newline())
-            .append(Component.text("1835").color(NamedTextColor.DARK_GRAY))
-            .append(Component.newline());
+        for (Map.Entry<String, List<Player>> entry : groups.entrySet()) {
+            Component footer = footers.computeIfAbsent(entry.getKey(), group -> renderFooter(group, online));
+            for (Player p : entry.getValue()) {
+                if (lastSent.get(p.getUniqueId()) != footer) {
+                    p.sendPlayerListHeaderAndFooter(HEADER, footer);
+                    lastSent.put(p.getUniqueId(), footer);
+                }
+            }
+        }
+    }
 
-        Component footer = Component.empty()
+    private String groupOf(Player player) {
+        PlayerData pd = plugin.getCharacterData().getPlayerData(player.getUniqueId());
+        if (pd.isDead() || pd.getCurrentPlaceName() == null) return NO_GROUP;
+        return pd.getCurrentPlaceName();
+    }
+
+    // Every group currently gets the same text; the group is where per-place content would go
+    private Component renderFooter(String group, int online) {
+        return Component.empty()
             .append(Component.newline())
             .append(Component.text("continents.cc").color(NamedTextColor.GRAY))
             .append(Component.newline())
             .append(Component.text(online + " online").color(NamedTextColor.DARK_GRAY))
             .append(Component.newline());
-
-        player.sendPlayerListHeaderAndFooter(header, footer);
     }
 }
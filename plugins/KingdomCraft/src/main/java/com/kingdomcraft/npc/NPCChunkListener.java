@@ -0,0 +1,34 @@
+package com.kingdomcraft.npc;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.EntitiesLoadEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+
+/**
+ * Reconciles travel NPC villagers as their chunks' entities load.
+ */
+public class NPCChunkListener implements Listener {
+    private final JavaPlugin plugin;
+    private final NPCManager npcManager;
+
+    public NPCChunkListener(JavaPlugin plugin, NPCManager npcManager) {
+        this.plugin = plugin;
+        this.npcManager = npcManager;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntitiesLoad(EntitiesLoadEvent event) {
+        Chunk chunk = event.getChunk();
+        if (!npcManager.needsReconcile(chunk, event.getEntities())) return;
+        // Spawn/remove on the next tick rather than in the middle of the entity load
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            if (chunk.isLoaded() && chunk.isEntitiesLoaded()) {
+                npcManager.reconcileChunk(chunk);
+            }
+        });
+    }
+}
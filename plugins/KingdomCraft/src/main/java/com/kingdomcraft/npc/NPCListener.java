@@ -42,12 +42,11 @@ public class NPCListener implements Listener {
     // ── Right-click NPC ──
     @EventHandler
     public void onInteractEntity(PlayerInteractEntityEvent event) {
-        Player player = event.getPlayer();
-        UUID entityId = event.getRightClicked().getUniqueId();
-
-        TravelNPC npc = npcManager.getNPCByEntity(entityId);
+        TravelNPC npc = npcManager.getNPCByEntity(event.getRightClicked());
         if (npc == null) return;
 
+        Player player = event.getPlayer();
+
         event.setCancelled(true);
 
         // Check if player is dead
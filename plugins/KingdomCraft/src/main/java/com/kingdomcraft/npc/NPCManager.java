@@ -1,32 +1,46 @@
 package com.kingdomcraft.npc;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
+import com.kingdomcraft.data.storage.DocumentStore;
+import com.kingdomcraft.data.storage.Storage;
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
 import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
 import org.bukkit.Location;
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Villager;
+import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.plugin.java.JavaPlugin;
 
-import java.io.*;
-import java.lang.reflect.Type;
 import java.util.*;
 
 /**
  * Manages Travel NPCs — villagers that teleport players on right-click.
+ *
+ * NPC villagers carry their id in their persistent data container, so interaction
+ * handlers can reject every other entity with one PDC check; tagged entities are then
+ * resolved through an entity UUID → NPC index.
+ *
+ * Villagers are reconciled lazily: when a chunk's entities load, only the NPCs indexed
+ * in that chunk are checked — missing villagers are spawned, duplicates and leftovers of
+ * deleted or moved NPCs are removed. Nothing forces a chunk to load.
  */
 public class NPCManager {
     private final JavaPlugin plugin;
-    private final Gson gson;
-    private final File dataFile;
+    private final DocumentStore<Map<String, TravelNPC>> store;
+    private final NamespacedKey npcKey;
     private Map<String, TravelNPC> npcs; // id -> NPC
+    private final Map<UUID, TravelNPC> npcsByEntity = new HashMap<>();
+    // world name -> chunk key -> NPCs standing in that chunk
+    private final Map<String, Map<Long, List<TravelNPC>>> npcsByChunk = new HashMap<>();
 
-    public NPCManager(JavaPlugin plugin) {
+    public NPCManager(JavaPlugin plugin, Storage storage) {
         this.plugin = plugin;
-        this.gson = new GsonBuilder().setPrettyPrinting().create();
-        this.dataFile = new File(plugin.getDataFolder(), "npcs.json");
+        this.store = storage.documents("npcs", new TypeToken<Map<String, TravelNPC>>(){}.getType());
+        this.npcKey = new NamespacedKey(plugin, "travel_npc");
         this.npcs = new HashMap<>();
         load();
     }
@@ -34,28 +48,24 @@ public class NPCManager {
     // ── Persistence ──
 
     public void load() {
-        if (!dataFile.exists()) {
-            plugin.getDataFolder().mkdirs();
+        if (!store.exists()) {
             save();
             return;
         }
-        try (Reader reader = new FileReader(dataFile)) {
-            Type type = new TypeToken<Map<String, TravelNPC>>(){}.getType();
-            Map<String, TravelNPC> loaded = gson.fromJson(reader, type);
-            if (loaded != null) {
-                this.npcs = loaded;
-            }
-        } catch (Exception e) {
-            plugin.getLogger().severe("Failed to load NPC data: " + e.getMessage());
+        Map<String, TravelNPC> loaded = store.load();
+        if (loaded != null) {
+            this.npcs = loaded;
+        }
+        npcsByEntity.clear();
+        npcsByChunk.clear();
+        for (TravelNPC npc : npcs.values()) {
+            if (npc.getEntityUUID() != null) npcsByEntity.put(npc.getEntityUUID(), npc);
+            indexChunk(npc);
         }
     }
 
     public void save() {
-        try (Writer writer = new FileWriter(dataFile)) {
-            gson.toJson(npcs, writer);
-        } catch (Exception e) {
-            plugin.getLogger().severe("Failed to save NPC data: " + e.getMessage());
-        }
+        store.save(npcs);
     }
 
     // ── NPC CRUD ──
@@ -71,21 +81,12 @@ public class NPCManager {
     public TravelNPC createNPC(String id, String displayName, Location spawnLoc, Location destination) {
         if (npcs.containsKey(id.toLowerCase())) return null;
 
-        // Spawn villager
-        Villager villager = (Villager) spawnLoc.getWorld().spawnEntity(spawnLoc, EntityType.VILLAGER);
-        villager.customName(net.kyori.adventure.text.Component.text(displayName)
-                .color(net.kyori.adventure.text.format.NamedTextColor.GOLD));
-        villager.setCustomNameVisible(true);
-        villager.setAI(false);
-        villager.setInvulnerable(true);
-        villager.setSilent(true);
-        villager.setCollidable(false);
-        villager.setPersistent(true);
-        villager.setRemoveWhenFarAway(false);
-        villager.setProfession(Villager.Profession.NITWIT);
+        Villager villager = spawnVillager(spawnLoc, id.toLowerCase(), displayName);
 
         TravelNPC npc = new TravelNPC(id.toLowerCase(), displayName, villager.getUniqueId(), spawnLoc, destination);
         npcs.put(id.toLowerCase(), npc);
+        npcsByEntity.put(villager.getUniqueId(), npc);
+        indexChunk(npc);
         save();
         return npc;
     }
@@ -96,8 +97,11 @@ public class NPCManager {
     public boolean deleteNPC(String id) {
         TravelNPC npc = npcs.remove(id.toLowerCase());
         if (npc == null) return false;
+        npcsByEntity.remove(npc.getEntityUUID());
+        unindexChunk(npc);
 
-        // Remove the entity from the world
+        // Remove the entity from the world. If its chunk isn't loaded, the villager is
+        // cleaned up by reconcileChunk when it next loads.
         removeEntity(npc.getEntityUUID());
         save();
         return true;
@@ -115,43 +119,187 @@ public class NPCManager {
      * Find which TravelNPC a given entity UUID belongs to.
      */
     public TravelNPC getNPCByEntity(UUID entityUUID) {
-        for (TravelNPC npc : npcs.values()) {
-            if (npc.getEntityUUID().equals(entityUUID)) {
-                return npc;
+        return npcsByEntity.get(entityUUID);
+    }
+
+    /**
+     * Find which TravelNPC an entity is. Anything that isn't a tagged villager is
+     * rejected without touching the index.
+     */
+    public TravelNPC getNPCByEntity(Entity entity) {
+        if (!(entity instanceof Villager)) return null;
+        if (entity.getPersistentDataContainer().has(npcKey, PersistentDataType.STRING)) {
+            return npcsByEntity.get(entity.getUniqueId());
+        }
+
+        // Villagers spawned before tagging existed — tag them the first time they're used
+        TravelNPC npc = npcsByEntity.get(entity.getUniqueId());
+        if (npc != null) tag(entity, npc.getId());
+        return npc;
+    }
+
+    private void tag(Entity entity, String id) {
+        entity.getPersistentDataContainer().set(npcKey, PersistentDataType.STRING, id);
+    }
+
+    // ── Chunk index + reconciliation ──
+
+    private void indexChunk(TravelNPC npc) {
+        if (npc.getWorldName() == null) return;
+        npcsByChunk.computeIfAbsent(npc.getWorldName(), w -> new HashMap<>())
+                .computeIfAbsent(Chunk.getChunkKey(npc.getChunkX(), npc.getChunkZ()), k -> new ArrayList<>())
+                .add(npc);
+    }
+
+    private void unindexChunk(TravelNPC npc) {
+        Map<Long, List<TravelNPC>> chunks = npcsByChunk.get(npc.getWorldName());
+        if (chunks == null) return;
+        long key = Chunk.getChunkKey(npc.getChunkX(), npc.getChunkZ());
+        List<TravelNPC> inChunk = chunks.get(key);
+        if (inChunk == null) return;
+        inChunk.remove(npc);
+        if (inChunk.isEmpty()) chunks.remove(key);
+    }
+
+    private List<TravelNPC> npcsInChunk(Chunk chunk) {
+        Map<Long, List<TravelNPC>> chunks = npcsByChunk.get(chunk.getWorld().getName());
+        if (chunks == null) return List.of();
+        return chunks.getOrDefault(chunk.getChunkKey(), List.of());
+    }
+
+    /**
+     * Reconcile NPCs in chunks whose entities are already loaded (spawn chunks at
+     * startup). Chunks that load later are handled by {@link NPCChunkListener}.
+     */
+    public void reconcileLoadedChunks() {
+        for (Map.Entry<String, Map<Long, List<TravelNPC>>> e : npcsByChunk.entrySet()) {
+            World world = Bukkit.getWorld(e.getKey());
+            if (world == null) continue;
+            for (long key : new ArrayList<>(e.getValue().keySet())) {
+                int chunkX = (int) key;
+                int chunkZ = (int) (key >> 32);
+                if (!world.isChunkLoaded(chunkX, chunkZ)) continue;
+                Chunk chunk = world.getChunkAt(chunkX, chunkZ);
+                if (chunk.isEntitiesLoaded()) reconcileChunk(chunk);
             }
         }
-        return null;
     }
 
     /**
-     * Respawn all NPC villagers (call on server startup to restore despawned ones).
+     * Whether a chunk whose entities just loaded has anything to reconcile: an NPC
+     * indexed there, or a villager that is (or was) one.
      */
-    public void respawnAll() {
-        for (TravelNPC npc : npcs.values()) {
+    public boolean needsReconcile(Chunk chunk, List<Entity> entities) {
+        if (!npcsInChunk(chunk).isEmpty()) return true;
+        for (Entity entity : entities) {
+            if (!(entity instanceof Villager)) continue;
+            if (npcsByEntity.containsKey(entity.getUniqueId())
+                    || entity.getPersistentDataContainer().has(npcKey, PersistentDataType.STRING)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Make the villagers in a loaded chunk match the NPCs indexed there: one tagged
+     * villager per NPC, spawned if missing; extras and villagers of NPCs that were
+     * deleted or moved elsewhere are removed.
+     */
+    public void reconcileChunk(Chunk chunk) {
+        List<TravelNPC> expected = npcsInChunk(chunk);
+        Map<String, Entity> kept = new HashMap<>();
+        int removed = 0;
+
+        for (Entity entity : chunk.getEntities()) {
+            if (!(entity instanceof Villager) || entity.isDead()) continue;
+
+            TravelNPC npc;
+            String taggedId = entity.getPersistentDataContainer().get(npcKey, PersistentDataType.STRING);
+            if (taggedId != null) {
+                npc = npcs.get(taggedId);
+                if (npc == null || !expected.contains(npc)) {
+                    entity.remove();
+                    removed++;
+                    continue;
+                }
+            } else {
+                // Untagged: either an NPC from before tagging, a duplicate left by an
+                // unclean shutdown, or an ordinary villager
+                npc = npcsByEntity.get(entity.getUniqueId());
+                if (npc == null) npc = findUntaggedCopy((Villager) entity, expected);
+                if (npc == null) continue;
+                tag(entity, npc.getId());
+            }
+
+            Entity current = kept.get(npc.getId());
+            if (current == null) {
+                kept.put(npc.getId(), entity);
+            } else if (entity.getUniqueId().equals(npc.getEntityUUID())) {
+                // Prefer the villager the NPC already points at
+                current.remove();
+                kept.put(npc.getId(), entity);
+                removed++;
+            } else {
+                entity.remove();
+                removed++;
+            }
+        }
+
+        boolean changed = false;
+        for (TravelNPC npc : expected) {
+            Entity villager = kept.get(npc.getId());
+            if (villager == null) {
+                Location loc = npc.getNpcLocation();
+                if (loc == null) continue;
+                villager = spawnVillager(loc, npc.getId(), npc.getDisplayName());
+                plugin.getLogger().info("Respawned NPC: " + npc.getId());
+            }
+            if (!villager.getUniqueId().equals(npc.getEntityUUID())) {
+                npcsByEntity.remove(npc.getEntityUUID());
+                npc.setEntityUUID(villager.getUniqueId());
+                npcsByEntity.put(villager.getUniqueId(), npc);
+                changed = true;
+            }
+        }
+
+        if (removed > 0) {
+            plugin.getLogger().info("Removed " + removed + " stale NPC villager(s) in chunk "
+                    + chunk.getX() + ", " + chunk.getZ() + ".");
+        }
+        if (changed) save();
+    }
+
+    /**
+     * An untagged villager that looks exactly like one of our NPCs, standing on its spot.
+     */
+    private TravelNPC findUntaggedCopy(Villager villager, List<TravelNPC> candidates) {
+        if (villager.hasAI() || villager.customName() == null) return null;
+        String name = PlainTextComponentSerializer.plainText().serialize(villager.customName());
+        for (TravelNPC npc : candidates) {
             Location loc = npc.getNpcLocation();
-            if (loc == null || loc.getWorld() == null) continue;
-
-            // Check if entity still exists
-            Entity existing = Bukkit.getEntity(npc.getEntityUUID());
-            if (existing != null && !existing.isDead()) continue;
-
-            // Respawn
-            Villager villager = (Villager) loc.getWorld().spawnEntity(loc, EntityType.VILLAGER);
-            villager.customName(net.kyori.adventure.text.Component.text(npc.getDisplayName())
-                    .color(net.kyori.adventure.text.format.NamedTextColor.GOLD));
-            villager.setCustomNameVisible(true);
-            villager.setAI(false);
-            villager.setInvulnerable(true);
-            villager.setSilent(true);
-            villager.setCollidable(false);
-            villager.setPersistent(true);
-            villager.setRemoveWhenFarAway(false);
-            villager.setProfession(Villager.Profession.NITWIT);
-
-            npc.setEntityUUID(villager.getUniqueId());
-            plugin.getLogger().info("Respawned NPC: " + npc.getId());
+            if (loc != null && name.equals(npc.getDisplayName())
+                    && villager.getLocation().distanceSquared(loc) < 4) {
+                return npc;
+            }
         }
-        save();
+        return null;
+    }
+
+    private Villager spawnVillager(Location loc, String id, String displayName) {
+        Villager villager = (Villager) loc.getWorld().spawnEntity(loc, EntityType.VILLAGER);
+        villager.customName(net.kyori.adventure.text.Component.text(displayName)
+                .color(net.kyori.adventure.text.format.NamedTextColor.GOLD));
+        villager.setCustomNameVisible(true);
+        villager.setAI(false);
+        villager.setInvulnerable(true);
+        villager.setSilent(true);
+        villager.setCollidable(false);
+        villager.setPersistent(true);
+        villager.setRemoveWhenFarAway(false);
+        villager.setProfession(Villager.Profession.NITWIT);
+        tag(villager, id);
+        return villager;
     }
 
     private void removeEntity(UUID uuid) {
@@ -43,6 +43,10 @@ public class TravelNPC {
     public UUID getEntityUUID() { return entityUUID; }
     public void setEntityUUID(UUID uuid) { this.entityUUID = uuid; }
 
+    public String getWorldName() { return world; }
+    public int getChunkX() { return (int) Math.floor(x) >> 4; }
+    public int getChunkZ() { return (int) Math.floor(z) >> 4; }
+
     public Location getNpcLocation() {
         var w = Bukkit.getWorld(world);
         if (w == null) return null;
@@ -0,0 +1,95 @@
+package com.kingdomcraft.world;
+
+import org.bukkit.Bukkit;
+import org.bukkit.GameRule;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.WorldCreator;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.java.JavaPlugin;
+
+/**
+ * Optional empty world that dead players are parked in, so they don't keep chunks
+ * loaded (or count toward tracking) around main-world spawn.
+ *
+ * Created the first time it's needed, never saved, and unloaded on shutdown.
+ */
+public class LimboWorld {
+    static final int HOLD_Y = 64;
+
+    private final JavaPlugin plugin;
+    private final String worldName;
+    private boolean enabled;
+    private World world;
+
+    public LimboWorld(JavaPlugin plugin) {
+        this.plugin = plugin;
+        this.enabled = plugin.getConfig().getBoolean("limbo.enabled", false);
+        this.worldName = plugin.getConfig().getString("limbo.world-name", "kingdomcraft_limbo");
+
+        // It's never saved, so it must not be a world players actually live in
+        if (enabled && Bukkit.getWorld(worldName) != null) {
+            plugin.getLogger().severe("limbo.world-name '" + worldName + "' is an existing world; limbo disabled.");
+            enabled = false;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Where dead players are held. Loads the world on first use. */
+    public Location getHoldLocation() {
+        return new Location(getWorld(), 0.5, HOLD_Y, 0.5, 0, 0);
+    }
+
+    private World getWorld() {
+        if (world != null) {
+            return world;
+        }
+
+        World loaded = Bukkit.getWorld(worldName);
+        if (loaded == null) {
+            loaded = new WorldCreator(worldName)
+                    .environment(World.Environment.NORMAL)
+                    .generator(new VoidGenerator())
+                    .generateStructures(false)
+                    .createWorld();
+            plugin.getLogger().info("Created limbo world '" + worldName + "'.");
+        }
+
+        loaded.setAutoSave(false);
+        loaded.setSpawnLocation(0, HOLD_Y, 0);
+        loaded.setViewDistance(2);
+        loaded.setSimulationDistance(2);
+        loaded.setGameRule(GameRule.SPAWN_CHUNK_RADIUS, 0);
+        loaded.setGameRule(GameRule.DO_MOB_SPAWNING, false);
+        loaded.setGameRule(GameRule.DO_PATROL_SPAWNING, false);
+        loaded.setGameRule(GameRule.DO_TRADER_SPAWNING, false);
+        loaded.setGameRule(GameRule.DO_DAYLIGHT_CYCLE, false);
+        loaded.setGameRule(GameRule.DO_WEATHER_CYCLE, false);
+        loaded.setGameRule(GameRule.RANDOM_TICK_SPEED, 0);
+        loaded.setGameRule(GameRule.ANNOUNCE_ADVANCEMENTS, false);
+        world = loaded;
+        return world;
+    }
+
+    /**
+     * Move anyone still in limbo to main-world spawn (the server refuses to unload a
+     * world with players in it) and unload the world without saving. Death confinement
+     * must already be unregistered or it would cancel the teleports.
+     */
+    public void shutdown() {
+        if (world == null) {
+            return;
+        }
+        Location spawn = Bukkit.getWorlds().get(0).getSpawnLocation();
+        for (Player player : world.getPlayers()) {
+            player.teleport(spawn);
+        }
+        if (!Bukkit.unloadWorld(world, false)) {
+            plugin.getLogger().warning("Could not unload limbo world '" + worldName + "'.");
+        }
+        world = null;
+    }
+}
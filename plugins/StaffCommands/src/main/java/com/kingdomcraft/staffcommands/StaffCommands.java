@@ -22,6 +22,7 @@ public class StaffCommands extends JavaPlugin {
         if (!getDataFolder().exists()) {
             getDataFolder().mkdirs();
         }
+        saveDefaultConfig();
         
         // Initialize managers
         freezeManager = new FreezeManager();
@@ -41,9 +42,13 @@ public class StaffCommands extends JavaPlugin {
     
     @Override
     public void onDisable() {
-        // Save audit logs
+        if (chatHistoryManager != null) {
+            chatHistoryManager.close();
+        }
+        
+        // Close audit log
         if (auditManager != null) {
-            auditManager.saveToFile();
+            auditManager.close();
         }
         
         getLogger().info("StaffCommands has been disabled!");
@@ -58,7 +63,9 @@ public class StaffCommands extends JavaPlugin {
         
         // Moderation commands
         getCommand("freeze").setExecutor(new FreezeCommand(freezeManager, auditManager));
-        getCommand("history").setExecutor(new HistoryCommand(chatHistoryManager, auditManager));
+        HistoryCommand historyCommand = new HistoryCommand(this, chatHistoryManager, auditManager);
+        getCommand("history").setExecutor(historyCommand);
+        getServer().getPluginManager().registerEvents(historyCommand, this);
         
         // Announcement commands
         getCommand("hint").setExecutor(new HintCommand(auditManager));
@@ -66,7 +73,7 @@ public class StaffCommands extends JavaPlugin {
         getCommand("chatannounce").setExecutor(new ChatAnnounceCommand(auditManager));
         
         // Audit command
-        getCommand("audit").setExecutor(new AuditCommand(auditManager));
+        getCommand("audit").setExecutor(new AuditCommand(this, auditManager));
     }
     
     public FreezeManager getFreezeManager() {
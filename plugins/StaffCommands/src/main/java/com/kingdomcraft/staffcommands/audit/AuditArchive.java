@@ -0,0 +1,182 @@
+package com.kingdomcraft.staffcommands.audit;
+
+import com.kingdomcraft.staffcommands.managers.StaffAuditManager.AuditEntry;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold tier of the audit log: one gzip file per month under {@code audit/archive/}.
+ *
+ * Each archived segment is appended as its own gzip member (header: long segment id,
+ * int count, then the records in segment format). A month file is never appended to in
+ * place: the new member is written to a copy that replaces it, so a crash can't leave a
+ * torn member that hides everything after it. If the server stops between archiving a
+ * segment and deleting it, the segment is archived again on the next run; readers skip
+ * members whose segment id they have already seen.
+ */
+class AuditArchive {
+    
+    private static final String PREFIX = "audit-";
+    private static final String SUFFIX = ".log.gz";
+    
+    private final JavaPlugin plugin;
+    private final File dir;
+    
+    AuditArchive(JavaPlugin plugin, File dir) {
+        this.plugin = plugin;
+        this.dir = dir;
+    }
+    
+    private File monthFile(YearMonth month) {
+        return new File(dir, PREFIX + month + SUFFIX);
+    }
+    
+    private static YearMonth monthOf(long timestamp) {
+        return YearMonth.from(Instant.ofEpochMilli(timestamp).atZone(ZoneId.systemDefault()));
+    }
+    
+    /**
+     * Copy a sealed segment into its month's archive, fsync it, and rename it into place.
+     */
+    void append(AuditSegment segment) throws IOException {
+        dir.mkdirs();
+        
+        // A segment covers at most one day, but group by month anyway in case the clock moved
+        Map<YearMonth, List<byte[]>> byMonth = new TreeMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(segment.getFile())))) {
+            long offset = 0;
+            while (offset < segment.getSize()) {
+                int length = in.readInt();
+                byte[] body = new byte[length];
+                in.readFully(body);
+                long timestamp = new DataInputStream(new ByteArrayInputStream(body)).readLong();
+                byMonth.computeIfAbsent(monthOf(timestamp), k -> new ArrayList<>()).add(body);
+                offset += 4 + length;
+            }
+        }
+        
+        for (Map.Entry<YearMonth, List<byte[]>> e : byMonth.entrySet()) {
+            File file = monthFile(e.getKey());
+            File tmp = new File(dir, file.getName() + ".tmp");
+            try (FileOutputStream fos = new FileOutputStream(tmp)) {
+                // Gzip members concatenate, so the existing archive is copied as is
+                if (file.exists()) {
+                    Files.copy(file.toPath(), fos);
+                }
+                GZIPOutputStream gzip = new GZIPOutputStream(new BufferedOutputStream(fos));
+                DataOutputStream out = new DataOutputStream(gzip);
+                out.writeLong(segment.getStartedAt());
+                out.writeInt(e.getValue().size());
+                for (byte[] body : e.getValue()) {
+                    out.writeInt(body.length);
+                    out.write(body);
+                }
+                gzip.finish();
+                out.flush();
+                fos.getFD().sync();
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+    
+    /**
+     * Entries in [from, to] from the months that overlap the range, newest month first,
+     * stopping once {@code limit} entries are collected. Returned oldest first.
+     */
+    List<AuditEntry> query(String player, long from, long to, int limit) {
+        LinkedList<AuditEntry> result = new LinkedList<>();
+        YearMonth first = from == Long.MIN_VALUE ? YearMonth.of(1970, 1) : monthOf(from);
+        YearMonth last = monthOf(Math.min(to, System.currentTimeMillis()));
+        
+        List<YearMonth> months = months();
+        months.sort(Comparator.reverseOrder());
+        for (YearMonth month : months) {
+            if (result.size() >= limit || month.isBefore(first)) {
+                break;
+            }
+            if (month.isAfter(last)) {
+                continue;
+            }
+            List<AuditEntry> matches = readMonth(monthFile(month), player, from, to);
+            for (int i = matches.size() - 1; i >= 0 && result.size() < limit; i--) {
+                result.addFirst(matches.get(i));
+            }
+        }
+        return result;
+    }
+    
+    private List<AuditEntry> readMonth(File file, String player, long from, long to) {
+        List<AuditEntry> matches = new ArrayList<>();
+        Set<Long> seenSegments = new HashSet<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))))) {
+            while (true) {
+                long segmentId;
+                try {
+                    segmentId = in.readLong();
+                } catch (EOFException end) {
+                    break;
+                }
+                int count = in.readInt();
+                boolean duplicate = !seenSegments.add(segmentId);
+                for (int i = 0; i < count; i++) {
+                    int length = in.readInt();
+                    if (duplicate) {
+                        in.skipNBytes(length);
+                        continue;
+                    }
+                    AuditEntry entry = AuditSegment.decode(in);
+                    if (entry.getTimestamp() < from || entry.getTimestamp() > to) {
+                        continue;
+                    }
+                    if (player == null || player.equalsIgnoreCase(entry.getStaffName())
+                            || player.equalsIgnoreCase(entry.getTarget())) {
+                        matches.add(entry);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            plugin.getLogger().severe("Failed to read audit archive " + file.getName() + ": " + e.getMessage());
+        }
+        // Members are appended as segments age out, so they are already in time order
+        return matches;
+    }
+    
+    private List<YearMonth> months() {
+        List<YearMonth> months = new ArrayList<>();
+        String[] names = dir.list((d, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+        if (names == null) {
+            return months;
+        }
+        for (String name : names) {
+            try {
+                months.add(YearMonth.parse(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+            } catch (RuntimeException ignored) {
+                // Not one of ours
+            }
+        }
+        return months;
+    }
+    
+    /**
+     * Delete archives for months before {@code keepFrom}.
+     * @return number of archives removed
+     */
+    int deleteBefore(YearMonth keepFrom) {
+        int removed = 0;
+        for (YearMonth month : months()) {
+            if (month.isBefore(keepFrom) && monthFile(month).delete()) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+}
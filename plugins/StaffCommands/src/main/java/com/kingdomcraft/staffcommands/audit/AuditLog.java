@@ -0,0 +1,283 @@
+package com.kingdomcraft.staffcommands.audit;
+
+import com.kingdomcraft.staffcommands.managers.StaffAuditManager.AuditEntry;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Append-only audit log stored as a series of segment files under {@code audit/}.
+ *
+ * The newest segment receives appends; it is sealed and a new one started once it
+ * passes the size limit or the day changes. Queries binary search the segment list by
+ * time and use each segment's sparse and posting indexes, so they never read more than
+ * the segments (and records) they need.
+ *
+ * Segments older than the hot retention period are moved into gzip'd monthly archives by
+ * {@link #compact}; a query whose range reaches past the oldest hot segment falls back to them.
+ */
+public class AuditLog {
+    
+    private final JavaPlugin plugin;
+    private final File dir;
+    private final long maxSegmentBytes;
+    
+    // Oldest first; the last one is the active segment
+    private final List<AuditSegment> segments = new ArrayList<>();
+    private DataOutputStream out;
+    
+    private final AuditArchive archive;
+    // Held while an archive file is written or read, separately from the hot-log lock
+    private final Object archiveLock = new Object();
+    
+    public AuditLog(JavaPlugin plugin, File dir, long maxSegmentBytes) {
+        this.plugin = plugin;
+        this.dir = dir;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.archive = new AuditArchive(plugin, new File(dir, "archive"));
+        dir.mkdirs();
+        openSegments();
+    }
+    
+    private void openSegments() {
+        File[] files = dir.listFiles((d, name) -> name.startsWith("audit-") && name.endsWith(AuditSegment.SUFFIX));
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparing(File::getName, Comparator.comparingLong(AuditLog::startOf)));
+        
+        for (int i = 0; i < files.length; i++) {
+            boolean sealed = i < files.length - 1;
+            try {
+                segments.add(AuditSegment.open(files[i], sealed));
+            } catch (IOException | RuntimeException e) {
+                plugin.getLogger().severe("Failed to open audit segment " + files[i].getName() + ": " + e.getMessage());
+            }
+        }
+    }
+    
+    private static long startOf(String fileName) {
+        try {
+            return Long.parseLong(fileName.substring("audit-".length(), fileName.length() - AuditSegment.SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+    
+    // ── Append ──
+    
+    public synchronized void append(AuditEntry entry) {
+        try {
+            AuditSegment active = activeSegment(entry.getTimestamp());
+            byte[] body = AuditSegment.encode(entry);
+            long offset = active.getSize();
+            out.writeInt(body.length);
+            out.write(body);
+            out.flush();
+            active.indexAppended(entry, offset, 4 + body.length);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Failed to append audit entry: " + e.getMessage());
+            closeWriter();
+        }
+    }
+    
+    /** The segment to append to, rolling over to a new one when needed. */
+    private AuditSegment activeSegment(long timestamp) throws IOException {
+        AuditSegment active = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (active != null && active.getCount() > 0
+                && (active.getSize() >= maxSegmentBytes || !sameDay(active.getStartedAt(), timestamp))) {
+            closeWriter();
+            active.seal();
+            active = null;
+        }
+        if (active == null) {
+            active = AuditSegment.create(dir, timestamp);
+            segments.add(active);
+        }
+        if (out == null) {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(active.getFile(), true)));
+        }
+        return active;
+    }
+    
+    private static boolean sameDay(long a, long b) {
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate dayA = Instant.ofEpochMilli(a).atZone(zone).toLocalDate();
+        LocalDate dayB = Instant.ofEpochMilli(b).atZone(zone).toLocalDate();
+        return dayA.equals(dayB);
+    }
+    
+    private void closeWriter() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to close audit segment: " + e.getMessage());
+        }
+        out = null;
+    }
+    
+    // ── Queries ──
+    
+    /**
+     * The newest {@code limit} entries in [from, to], oldest first. If {@code player}
+     * is set only entries where they are the staff member or the target are returned.
+     * Segments are read from readers taken under the log's lock, and archives under their
+     * own lock, so file reads never hold up appends.
+     */
+    public List<AuditEntry> query(String player, long from, long to, int limit) {
+        List<AuditSegment.Reader> readers = new ArrayList<>();
+        long hotStart;
+        synchronized (this) {
+            // Newest first, from the newest segment that started by the end of the range
+            for (int i = lastSegmentStartingBefore(to); i >= 0; i--) {
+                readers.add(segments.get(i).reader(player));
+            }
+            hotStart = oldestHotTimestamp();
+        }
+        LinkedList<AuditEntry> result = new LinkedList<>();
+        queryHot(readers, result, player, from, to, limit);
+        
+        // Only touch the archives if the range reaches past the oldest hot entry. A segment
+        // archived after hotStart was read starts at or after it, so it is outside the
+        // archive range and nothing is returned twice.
+        if (result.size() < limit && from < hotStart) {
+            List<AuditEntry> cold;
+            synchronized (archiveLock) {
+                cold = archive.query(player, from, Math.min(to, hotStart - 1), limit - result.size());
+            }
+            result.addAll(0, cold);
+        }
+        return new ArrayList<>(result);
+    }
+    
+    private void queryHot(List<AuditSegment.Reader> readers, LinkedList<AuditEntry> result,
+                          String player, long from, long to, int limit) {
+        // Walk segments newest → oldest until enough entries are collected
+        for (AuditSegment.Reader segment : readers) {
+            if (result.size() >= limit || segment.getCount() > 0 && segment.getLastTimestamp() < from) {
+                break;
+            }
+            try {
+                if (player != null) {
+                    for (AuditEntry entry : segment.forPlayer(from, to, limit - result.size())) {
+                        result.addFirst(entry);
+                    }
+                } else {
+                    List<AuditEntry> range = segment.range(from, to);
+                    int take = Math.min(range.size(), limit - result.size());
+                    for (int j = range.size() - 1; j >= range.size() - take; j--) {
+                        result.addFirst(range.get(j));
+                    }
+                }
+            } catch (FileNotFoundException e) {
+                // Archived and deleted by compact() since the readers were taken; its entries
+                // are older than anything still hot, so the query just ends here
+                break;
+            } catch (IOException e) {
+                plugin.getLogger().severe("Failed to read audit segment " + segment.getFile().getName() + ": " + e.getMessage());
+            }
+        }
+    }
+    
+    private long oldestHotTimestamp() {
+        for (AuditSegment segment : segments) {
+            if (segment.getCount() > 0) {
+                return segment.getFirstTimestamp();
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+    
+    /** Index of the newest segment that started at or before {@code to}, by binary search. */
+    private int lastSegmentStartingBefore(long to) {
+        int lo = 0;
+        int hi = segments.size() - 1;
+        int found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (segments.get(mid).getStartedAt() <= to) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+    
+    // ── Retention ──
+    
+    /**
+     * Move sealed segments whose newest entry is older than {@code hotRetentionMillis} into
+     * the monthly archives, then drop archives older than {@code archiveRetentionMonths}
+     * (0 = keep forever). Safe to run off the main thread; appends are only blocked while
+     * the segment list is updated.
+     */
+    public void compact(long hotRetentionMillis, int archiveRetentionMonths) {
+        long cutoff = System.currentTimeMillis() - hotRetentionMillis;
+        List<AuditSegment> expired = new ArrayList<>();
+        synchronized (this) {
+            // Oldest first, never the active segment
+            for (int i = 0; i < segments.size() - 1; i++) {
+                AuditSegment segment = segments.get(i);
+                if (segment.getCount() > 0 && segment.getLastTimestamp() >= cutoff) {
+                    break;
+                }
+                expired.add(segment);
+            }
+        }
+        
+        int archived = 0;
+        for (AuditSegment segment : expired) {
+            try {
+                if (segment.getCount() > 0) {
+                    synchronized (archiveLock) {
+                        archive.append(segment);
+                    }
+                    archived++;
+                }
+            } catch (IOException e) {
+                plugin.getLogger().severe("Failed to archive audit segment " + segment.getFile().getName() + ": " + e.getMessage());
+                break;
+            }
+            synchronized (this) {
+                segments.remove(segment);
+            }
+            segment.getFile().delete();
+            segment.getIndexFile().delete();
+        }
+        
+        int removed = 0;
+        if (archiveRetentionMonths > 0) {
+            synchronized (archiveLock) {
+                removed = archive.deleteBefore(YearMonth.now().minusMonths(archiveRetentionMonths));
+            }
+        }
+        
+        if (archived > 0 || removed > 0) {
+            plugin.getLogger().info("Audit log compaction: archived " + archived + " segments, removed "
+                + removed + " expired archives.");
+        }
+    }
+    
+    public synchronized boolean isEmpty() {
+        for (AuditSegment segment : segments) {
+            if (segment.getCount() > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    public synchronized void close() {
+        closeWriter();
+    }
+}
@@ -0,0 +1,419 @@
+package com.kingdomcraft.staffcommands.audit;
+
+import com.kingdomcraft.staffcommands.managers.StaffAuditManager.AuditEntry;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * One append-only audit log file plus its in-memory indexes.
+ *
+ * Record layout: int bodyLength, then body = long timestamp + UTF staffName, staffUuid,
+ * action, target, details.
+ *
+ * Indexes:
+ *   sparse  — (timestamp, offset) for every SPARSE_INTERVAL-th record, binary searched
+ *             to find where a time range starts
+ *   posting — lowercased player name (staff or target) → offsets of their records
+ *
+ * A sealed segment stores both indexes in a sidecar .idx file so startup doesn't have to
+ * rescan it. The active segment is rescanned on startup; a torn last record is cut off.
+ */
+class AuditSegment {
+    
+    static final String SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final int SPARSE_INTERVAL = 32;
+    private static final int INDEX_VERSION = 1;
+    
+    private final File file;
+    private final File indexFile;
+    private final long startedAt;
+    
+    private int count;
+    private long size;
+    private long firstTimestamp = Long.MAX_VALUE;
+    private long lastTimestamp = Long.MIN_VALUE;
+    private boolean sealed;
+    
+    private final LongList sparseTimestamps = new LongList();
+    private final LongList sparseOffsets = new LongList();
+    private final Map<String, LongList> postings = new HashMap<>();
+    
+    private AuditSegment(File file, long startedAt) {
+        this.file = file;
+        this.indexFile = new File(file.getParentFile(), file.getName().replace(SUFFIX, INDEX_SUFFIX));
+        this.startedAt = startedAt;
+    }
+    
+    static AuditSegment create(File dir, long startedAt) {
+        long name = startedAt;
+        File file = new File(dir, "audit-" + name + SUFFIX);
+        while (file.exists()) {
+            file = new File(dir, "audit-" + (++name) + SUFFIX);
+        }
+        return new AuditSegment(file, startedAt);
+    }
+    
+    /**
+     * Open an existing segment. Sealed segments load their .idx sidecar when it matches
+     * the file; anything else is rebuilt by scanning.
+     */
+    static AuditSegment open(File file, boolean sealed) throws IOException {
+        String name = file.getName();
+        long startedAt = Long.parseLong(name.substring("audit-".length(), name.length() - SUFFIX.length()));
+        AuditSegment segment = new AuditSegment(file, startedAt);
+        
+        if (sealed && segment.loadIndex()) {
+            segment.sealed = true;
+            return segment;
+        }
+        segment.rebuild();
+        if (sealed) {
+            segment.seal();
+        }
+        return segment;
+    }
+    
+    // ── Encoding ──
+    
+    static byte[] encode(AuditEntry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(entry.getTimestamp());
+            out.writeUTF(nullToEmpty(entry.getStaffName()));
+            out.writeUTF(nullToEmpty(entry.getStaffUuid()));
+            out.writeUTF(nullToEmpty(entry.getAction()));
+            out.writeUTF(nullToEmpty(entry.getTarget()));
+            out.writeUTF(nullToEmpty(entry.getDetails()));
+        }
+        return bytes.toByteArray();
+    }
+    
+    static AuditEntry decode(DataInput in) throws IOException {
+        long timestamp = in.readLong();
+        String staffName = in.readUTF();
+        String staffUuid = in.readUTF();
+        String action = in.readUTF();
+        String target = in.readUTF();
+        String details = in.readUTF();
+        return new AuditEntry(staffName, staffUuid, action, target, details, timestamp);
+    }
+    
+    private static String nullToEmpty(String s) {
+        return s == null ? "" : s;
+    }
+    
+    // ── Indexing ──
+    
+    /** Record an entry that was just written at {@code offset} with {@code length} bytes total. */
+    void indexAppended(AuditEntry entry, long offset, int length) {
+        if (count % SPARSE_INTERVAL == 0) {
+            sparseTimestamps.add(entry.getTimestamp());
+            sparseOffsets.add(offset);
+        }
+        addPosting(entry.getStaffName(), offset);
+        if (entry.getTarget() != null && !entry.getTarget().equalsIgnoreCase(entry.getStaffName())) {
+            addPosting(entry.getTarget(), offset);
+        }
+        firstTimestamp = Math.min(firstTimestamp, entry.getTimestamp());
+        lastTimestamp = Math.max(lastTimestamp, entry.getTimestamp());
+        count++;
+        size = offset + length;
+    }
+    
+    private void addPosting(String name, long offset) {
+        if (name == null || name.isEmpty()) {
+            return;
+        }
+        postings.computeIfAbsent(name.toLowerCase(Locale.ROOT), k -> new LongList()).add(offset);
+    }
+    
+    private void rebuild() throws IOException {
+        long fileLength = file.length();
+        long offset = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (offset + 4 <= fileLength) {
+                int length = in.readInt();
+                if (length <= 0 || offset + 4 + length > fileLength) {
+                    break;
+                }
+                byte[] body = new byte[length];
+                in.readFully(body);
+                AuditEntry entry = decode(new DataInputStream(new ByteArrayInputStream(body)));
+                indexAppended(entry, offset, 4 + length);
+                offset += 4 + length;
+            }
+        }
+        if (offset < fileLength) {
+            // Torn write from a crash — drop the partial record
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(offset);
+            }
+        }
+        size = offset;
+    }
+    
+    /** Persist the indexes next to the segment. Called once the segment stops receiving appends. */
+    void seal() throws IOException {
+        File tmp = new File(indexFile.getParentFile(), indexFile.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(INDEX_VERSION);
+            out.writeLong(size);
+            out.writeInt(count);
+            out.writeLong(firstTimestamp);
+            out.writeLong(lastTimestamp);
+            sparseTimestamps.write(out);
+            sparseOffsets.write(out);
+            out.writeInt(postings.size());
+            for (Map.Entry<String, LongList> e : postings.entrySet()) {
+                out.writeUTF(e.getKey());
+                e.getValue().write(out);
+            }
+        }
+        Files.move(tmp.toPath(), indexFile.toPath(),
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        sealed = true;
+    }
+    
+    private boolean loadIndex() {
+        if (!indexFile.exists()) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != INDEX_VERSION || in.readLong() != file.length()) {
+                return false;
+            }
+            size = file.length();
+            count = in.readInt();
+            firstTimestamp = in.readLong();
+            lastTimestamp = in.readLong();
+            sparseTimestamps.read(in);
+            sparseOffsets.read(in);
+            int names = in.readInt();
+            for (int i = 0; i < names; i++) {
+                String name = in.readUTF();
+                LongList offsets = new LongList();
+                offsets.read(in);
+                postings.put(name, offsets);
+            }
+            return true;
+        } catch (IOException e) {
+            // Unreadable sidecar — start over and let the caller rescan
+            count = 0;
+            size = 0;
+            firstTimestamp = Long.MAX_VALUE;
+            lastTimestamp = Long.MIN_VALUE;
+            sparseTimestamps.clear();
+            sparseOffsets.clear();
+            postings.clear();
+            return false;
+        }
+    }
+    
+    // ── Queries ──
+    
+    /**
+     * A fixed view of the records written so far, for reading without the log's lock.
+     * Take it while holding the lock: the active segment's indexes are copied, a sealed
+     * segment's are shared since they no longer change.
+     */
+    Reader reader(String player) {
+        LongList offsets = player == null ? null : postings.get(player.toLowerCase(Locale.ROOT));
+        if (sealed) {
+            return new Reader(size, count, firstTimestamp, lastTimestamp, sparseTimestamps, sparseOffsets, offsets);
+        }
+        return new Reader(size, count, firstTimestamp, lastTimestamp, sparseTimestamps.copy(), sparseOffsets.copy(),
+            offsets == null ? null : offsets.copy());
+    }
+    
+    /** Reads one segment as of the moment {@link #reader} was called. */
+    final class Reader {
+        private final long size;
+        private final int count;
+        private final long firstTimestamp;
+        private final long lastTimestamp;
+        private final LongList sparseTimestamps;
+        private final LongList sparseOffsets;
+        private final LongList offsets;
+        
+        private Reader(long size, int count, long firstTimestamp, long lastTimestamp,
+                       LongList sparseTimestamps, LongList sparseOffsets, LongList offsets) {
+            this.size = size;
+            this.count = count;
+            this.firstTimestamp = firstTimestamp;
+            this.lastTimestamp = lastTimestamp;
+            this.sparseTimestamps = sparseTimestamps;
+            this.sparseOffsets = sparseOffsets;
+            this.offsets = offsets;
+        }
+        
+        File getFile() {
+            return file;
+        }
+        
+        int getCount() {
+            return count;
+        }
+        
+        long getLastTimestamp() {
+            return lastTimestamp;
+        }
+        
+        boolean overlaps(long from, long to) {
+            return count > 0 && firstTimestamp <= to && lastTimestamp >= from;
+        }
+        
+        /**
+         * Entries with timestamp in [from, to], oldest first. Starts at the sparse index
+         * entry just before {@code from} instead of the beginning of the file.
+         */
+        List<AuditEntry> range(long from, long to) throws IOException {
+            List<AuditEntry> result = new ArrayList<>();
+            if (!overlaps(from, to)) {
+                return result;
+            }
+            
+            int slot = sparseTimestamps.floorIndex(from);
+            long offset = slot < 0 ? 0 : sparseOffsets.get(slot);
+            try (FileInputStream fis = new FileInputStream(file)) {
+                fis.getChannel().position(offset);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(fis));
+                while (offset < size) {
+                    int length = in.readInt();
+                    AuditEntry entry = decode(in);
+                    offset += 4 + length;
+                    if (entry.getTimestamp() > to) {
+                        break;
+                    }
+                    if (entry.getTimestamp() >= from) {
+                        result.add(entry);
+                    }
+                }
+            }
+            return result;
+        }
+        
+        /**
+         * Up to {@code limit} of the reader's player's entries in [from, to], newest first.
+         * Reads only the records in their posting list.
+         */
+        List<AuditEntry> forPlayer(long from, long to, int limit) throws IOException {
+            List<AuditEntry> result = new ArrayList<>();
+            if (offsets == null || !overlaps(from, to)) {
+                return result;
+            }
+            
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                for (int i = offsets.size() - 1; i >= 0 && result.size() < limit; i--) {
+                    raf.seek(offsets.get(i) + 4);
+                    AuditEntry entry = decode(raf);
+                    if (entry.getTimestamp() < from) {
+                        break;
+                    }
+                    if (entry.getTimestamp() <= to) {
+                        result.add(entry);
+                    }
+                }
+            }
+            return result;
+        }
+    }
+    
+    // ── Accessors ──
+    
+    File getFile() {
+        return file;
+    }
+    
+    File getIndexFile() {
+        return indexFile;
+    }
+    
+    long getStartedAt() {
+        return startedAt;
+    }
+    
+    long getSize() {
+        return size;
+    }
+    
+    int getCount() {
+        return count;
+    }
+    
+    long getFirstTimestamp() {
+        return firstTimestamp;
+    }
+    
+    long getLastTimestamp() {
+        return lastTimestamp;
+    }
+    
+    /** Growable primitive long array — posting lists would otherwise box every offset. */
+    private static final class LongList {
+        private long[] values = new long[8];
+        private int size;
+        
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+        
+        long get(int index) {
+            return values[index];
+        }
+        
+        int size() {
+            return size;
+        }
+        
+        void clear() {
+            size = 0;
+        }
+        
+        LongList copy() {
+            LongList copy = new LongList();
+            copy.values = Arrays.copyOf(values, Math.max(8, size));
+            copy.size = size;
+            return copy;
+        }
+        
+        /** Index of the last value strictly below {@code key}, or -1. Values must be ascending. */
+        int floorIndex(long key) {
+            int lo = 0;
+            int hi = size - 1;
+            int found = -1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (values[mid] < key) {
+                    found = mid;
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return found;
+        }
+        
+        void write(DataOutput out) throws IOException {
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeLong(values[i]);
+            }
+        }
+        
+        void read(DataInput in) throws IOException {
+            int n = in.readInt();
+            values = new long[Math.max(8, n)];
+            for (int i = 0; i < n; i++) {
+                values[i] = in.readLong();
+            }
+            size = n;
+        }
+    }
+}
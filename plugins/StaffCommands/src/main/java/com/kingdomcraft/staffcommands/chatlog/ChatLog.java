@@ -0,0 +1,300 @@
+package com.kingdomcraft.staffcommands.chatlog;
+
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persistent chat log: one {@link ChatSegment} per day under {@code chat/}.
+ *
+ * Messages are handed to a single background writer thread, so chat threads never
+ * touch the disk. Searches look up tokens in each day's inverted index, newest day
+ * first, and read only the matching records; they block, so run them off the main thread.
+ */
+public class ChatLog {
+    
+    /** Shortest word that is indexed, and so can be searched for. */
+    public static final int MIN_WORD_LENGTH = ChatSegment.MIN_TOKEN_LENGTH;
+    
+    // Sealed days whose index is kept in memory for repeated searches
+    private static final int CACHED_SEGMENTS = 8;
+    
+    private final JavaPlugin plugin;
+    private final File dir;
+    private final int retentionDays;
+    private final ExecutorService writer;
+    
+    // Guarded by this; only the writer thread appends
+    private ChatSegment active;
+    private DataOutputStream out;
+    
+    private final Map<LocalDate, ChatSegment> sealedCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LocalDate, ChatSegment> eldest) {
+            return size() > CACHED_SEGMENTS;
+        }
+    };
+    
+    public ChatLog(JavaPlugin plugin, File dir, int retentionDays) {
+        this.plugin = plugin;
+        this.dir = dir;
+        this.retentionDays = retentionDays;
+        dir.mkdirs();
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "StaffCommands-ChatLog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.execute(this::deleteExpired);
+    }
+    
+    private static LocalDate dayOf(long timestamp) {
+        return Instant.ofEpochMilli(timestamp).atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+    
+    // ── Append ──
+    
+    /** Queue a message for writing. Safe to call from any thread. */
+    public void append(ChatRecord record) {
+        try {
+            writer.execute(() -> write(record));
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+    
+    private synchronized void write(ChatRecord record) {
+        try {
+            ChatSegment segment = activeSegment(dayOf(record.getTimestamp()));
+            byte[] body = ChatSegment.encode(record);
+            int offset = segment.getSize();
+            out.writeInt(body.length);
+            out.write(body);
+            out.flush();
+            segment.indexAppended(record, offset, 4 + body.length);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Failed to write chat log: " + e.getMessage());
+            closeWriter();
+        }
+    }
+    
+    /** The segment to append to, sealing the previous day's when the date changes. */
+    private ChatSegment activeSegment(LocalDate day) throws IOException {
+        if (active != null && !active.getDay().equals(day)) {
+            closeWriter();
+            active.seal();
+            active = null;
+            deleteExpired();
+        }
+        if (active == null) {
+            ChatSegment segment = new ChatSegment(dir, day);
+            if (segment.getFile().exists()) {
+                segment.load();
+            }
+            active = segment;
+        }
+        if (out == null) {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(active.getFile(), true)));
+        }
+        return active;
+    }
+    
+    private void closeWriter() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to close chat log: " + e.getMessage());
+        }
+        out = null;
+    }
+    
+    // ── Queries ──
+    
+    /** True if {@code text} has at least one word long enough to be indexed. */
+    public static boolean isSearchable(String text) {
+        return !ChatSegment.tokenize(text).isEmpty();
+    }
+    
+    /**
+     * Up to {@code limit} messages in [from, to] containing every word of {@code text}
+     * (and sent by {@code player}, if set), newest first. Nothing matches a text
+     * that isn't {@link #isSearchable searchable}.
+     */
+    public List<ChatRecord> search(String text, UUID player, long from, long to, int limit) {
+        List<String> tokens = new ArrayList<>(ChatSegment.tokenize(text));
+        if (tokens.isEmpty()) {
+            // Otherwise the player token alone would match all their messages
+            return new ArrayList<>();
+        }
+        if (player != null) {
+            tokens.add(ChatSegment.playerToken(player));
+        }
+        return find(tokens, from, to, limit);
+    }
+    
+    /** Up to {@code limit} of a player's messages since {@code from}, newest first. */
+    public List<ChatRecord> forPlayer(UUID player, long from, int limit) {
+        return find(List.of(ChatSegment.playerToken(player)), from, Long.MAX_VALUE, limit);
+    }
+    
+    private List<ChatRecord> find(List<String> tokens, long from, long to, int limit) {
+        List<ChatRecord> result = new ArrayList<>();
+        if (tokens.isEmpty()) {
+            return result;
+        }
+        LocalDate first = dayOf(Math.max(from, 0));
+        LocalDate last = dayOf(Math.min(to, System.currentTimeMillis()));
+        
+        List<LocalDate> days = days();
+        days.sort(Comparator.reverseOrder());
+        for (LocalDate day : days) {
+            if (result.size() >= limit || day.isBefore(first)) {
+                break;
+            }
+            if (day.isAfter(last)) {
+                continue;
+            }
+            try {
+                ChatSegment segment = null;
+                int[] offsets = null;
+                synchronized (this) {
+                    if (active != null && active.getDay().equals(day)) {
+                        segment = active;
+                        offsets = active.match(tokens);
+                    }
+                }
+                if (segment == null && day.isBefore(LocalDate.now())) {
+                    segment = sealed(day);
+                    offsets = segment.match(tokens);
+                } else if (segment == null) {
+                    // Today's file isn't open yet (after a restart). Have the writer open it,
+                    // so loading it can't race the writer's own open and appends.
+                    openOnWriter(day);
+                    synchronized (this) {
+                        if (active != null && active.getDay().equals(day)) {
+                            segment = active;
+                            offsets = active.match(tokens);
+                        }
+                    }
+                    if (segment == null) {
+                        continue;
+                    }
+                }
+                result.addAll(segment.read(offsets, from, to, limit - result.size()));
+            } catch (IOException e) {
+                plugin.getLogger().severe("Failed to search chat log for " + day + ": " + e.getMessage());
+            }
+        }
+        return result;
+    }
+    
+    /** Make {@code day} the active segment on the writer thread, waiting for it. */
+    private void openOnWriter(LocalDate day) throws IOException {
+        try {
+            writer.submit(() -> {
+                synchronized (this) {
+                    activeSegment(day);
+                }
+                return null;
+            }).get();
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the day is skipped
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+    }
+    
+    /** A day before today (never written to again), with its index loaded (and cached). */
+    private ChatSegment sealed(LocalDate day) throws IOException {
+        synchronized (sealedCache) {
+            ChatSegment segment = sealedCache.get(day);
+            // A size mismatch means the writer appended to it after it was cached (yesterday's
+            // segment stays active until the first message of the new day)
+            if (segment == null || segment.getSize() != segment.getFile().length()) {
+                segment = new ChatSegment(dir, day);
+                if (segment.load()) {
+                    segment.seal();
+                }
+                sealedCache.put(day, segment);
+            }
+            return segment;
+        }
+    }
+    
+    private List<LocalDate> days() {
+        List<LocalDate> days = new ArrayList<>();
+        String[] names = dir.list();
+        if (names == null) {
+            return days;
+        }
+        for (String name : names) {
+            LocalDate day = ChatSegment.dayOf(name);
+            if (day != null) {
+                days.add(day);
+            }
+        }
+        return days;
+    }
+    
+    // ── Retention ──
+    
+    private void deleteExpired() {
+        if (retentionDays <= 0) {
+            return;
+        }
+        LocalDate keepFrom = LocalDate.now().minusDays(retentionDays);
+        int removed = 0;
+        for (LocalDate day : days()) {
+            if (!day.isBefore(keepFrom)) {
+                continue;
+            }
+            ChatSegment segment = new ChatSegment(dir, day);
+            synchronized (sealedCache) {
+                sealedCache.remove(day);
+            }
+            segment.getIndexFile().delete();
+            if (segment.getFile().delete()) {
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            plugin.getLogger().info("Removed " + removed + " expired chat log files.");
+        }
+    }
+    
+    /** Finish pending writes and persist today's index. */
+    public void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Chat log writer did not finish in time; some messages may be lost.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            closeWriter();
+            if (active != null) {
+                try {
+                    active.seal();
+                } catch (IOException e) {
+                    plugin.getLogger().warning("Failed to write chat log index: " + e.getMessage());
+                }
+            }
+        }
+    }
+}
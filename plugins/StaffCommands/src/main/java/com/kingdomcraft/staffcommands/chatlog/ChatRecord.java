@@ -0,0 +1,36 @@
+package com.kingdomcraft.staffcommands.chatlog;
+
+import java.util.UUID;
+
+/**
+ * One logged chat message.
+ */
+public class ChatRecord {
+    private final UUID playerId;
+    private final String playerName;
+    private final String message;
+    private final long timestamp;
+    
+    public ChatRecord(UUID playerId, String playerName, String message, long timestamp) {
+        this.playerId = playerId;
+        this.playerName = playerName;
+        this.message = message;
+        this.timestamp = timestamp;
+    }
+    
+    public UUID getPlayerId() {
+        return playerId;
+    }
+    
+    public String getPlayerName() {
+        return playerName;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
@@ -0,0 +1,323 @@
+package com.kingdomcraft.staffcommands.chatlog;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * One day of chat: an append-only log file plus its inverted index.
+ *
+ * Record layout: int bodyLength, then body = long timestamp + UTF playerUuid, playerName, message.
+ *
+ * The index maps each token (lowercased word of 2+ characters, or "#uuid" for the
+ * sender) to the ascending offsets of the records containing it. Once the day is over
+ * it is written to a sidecar .idx file with delta/varint-encoded offsets, so searching
+ * an old day reads only the index and the matching records.
+ */
+class ChatSegment {
+    
+    static final String PREFIX = "chat-";
+    static final String SUFFIX = ".log";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final int INDEX_VERSION = 1;
+    static final int MIN_TOKEN_LENGTH = 2;
+    
+    private final File file;
+    private final File indexFile;
+    private final LocalDate day;
+    
+    private int size;
+    private final Map<String, IntList> postings = new HashMap<>();
+    
+    ChatSegment(File dir, LocalDate day) {
+        this.day = day;
+        this.file = new File(dir, PREFIX + day + SUFFIX);
+        this.indexFile = new File(dir, PREFIX + day + INDEX_SUFFIX);
+    }
+    
+    /** Day of a segment file name, or null if it isn't one. */
+    static LocalDate dayOf(String fileName) {
+        if (!fileName.startsWith(PREFIX) || !fileName.endsWith(SUFFIX)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(fileName.substring(PREFIX.length(), fileName.length() - SUFFIX.length()));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+    
+    // ── Tokens ──
+    
+    static String playerToken(UUID playerId) {
+        return "#" + playerId;
+    }
+    
+    /** Distinct searchable words of a message. */
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean word = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                if (i - start >= MIN_TOKEN_LENGTH) {
+                    tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+    
+    // ── Encoding ──
+    
+    static byte[] encode(ChatRecord record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(record.getTimestamp());
+            out.writeUTF(record.getPlayerId().toString());
+            out.writeUTF(record.getPlayerName());
+            out.writeUTF(record.getMessage());
+        }
+        return bytes.toByteArray();
+    }
+    
+    static ChatRecord decode(DataInput in) throws IOException {
+        long timestamp = in.readLong();
+        UUID playerId = UUID.fromString(in.readUTF());
+        String playerName = in.readUTF();
+        String message = in.readUTF();
+        return new ChatRecord(playerId, playerName, message, timestamp);
+    }
+    
+    // ── Indexing ──
+    
+    /** Record an entry that was just written at {@code offset} with {@code length} bytes total. */
+    void indexAppended(ChatRecord record, int offset, int length) {
+        addPosting(playerToken(record.getPlayerId()), offset);
+        for (String token : tokenize(record.getMessage())) {
+            addPosting(token, offset);
+        }
+        size = offset + length;
+    }
+    
+    private void addPosting(String token, int offset) {
+        postings.computeIfAbsent(token, k -> new IntList()).add(offset);
+    }
+    
+    /**
+     * Load the .idx sidecar if it matches the file, else rebuild by scanning.
+     * @return true if the index had to be rebuilt
+     */
+    boolean load() throws IOException {
+        if (loadIndex()) {
+            return false;
+        }
+        rebuild();
+        return true;
+    }
+    
+    private void rebuild() throws IOException {
+        postings.clear();
+        size = 0;
+        long fileLength = file.length();
+        int offset = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (offset + 4 <= fileLength) {
+                int length = in.readInt();
+                if (length <= 0 || offset + 4 + length > fileLength) {
+                    break;
+                }
+                byte[] body = new byte[length];
+                in.readFully(body);
+                indexAppended(decode(new DataInputStream(new ByteArrayInputStream(body))), offset, 4 + length);
+                offset += 4 + length;
+            }
+        }
+        if (offset < fileLength) {
+            // Torn write from a crash — drop the partial record
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(offset);
+            }
+        }
+    }
+    
+    /** Persist the index next to the log. Called once the day stops receiving messages. */
+    void seal() throws IOException {
+        File tmp = new File(indexFile.getParentFile(), indexFile.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(INDEX_VERSION);
+            out.writeInt(size);
+            out.writeInt(postings.size());
+            for (Map.Entry<String, IntList> e : postings.entrySet()) {
+                out.writeUTF(e.getKey());
+                e.getValue().writeDeltas(out);
+            }
+        }
+        Files.move(tmp.toPath(), indexFile.toPath(),
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private boolean loadIndex() {
+        if (!indexFile.exists()) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != INDEX_VERSION || in.readInt() != file.length()) {
+                return false;
+            }
+            size = (int) file.length();
+            int tokens = in.readInt();
+            for (int i = 0; i < tokens; i++) {
+                String token = in.readUTF();
+                IntList offsets = new IntList();
+                offsets.readDeltas(in);
+                postings.put(token, offsets);
+            }
+            return true;
+        } catch (IOException e) {
+            // Unreadable sidecar — let the caller rescan
+            postings.clear();
+            size = 0;
+            return false;
+        }
+    }
+    
+    // ── Queries ──
+    
+    /**
+     * Offsets of records containing every token, ascending. Caller must hold whatever
+     * lock guards appends while this runs; the returned array is a copy.
+     */
+    int[] match(List<String> tokens) {
+        int[] result = null;
+        for (String token : tokens) {
+            IntList offsets = postings.get(token);
+            if (offsets == null) {
+                return new int[0];
+            }
+            result = result == null ? offsets.toArray() : IntList.intersect(result, offsets);
+        }
+        return result == null ? new int[0] : result;
+    }
+    
+    /** Read the records at {@code offsets}, newest first, keeping those in [from, to]. */
+    List<ChatRecord> read(int[] offsets, long from, long to, int limit) throws IOException {
+        List<ChatRecord> result = new ArrayList<>();
+        if (offsets.length == 0) {
+            return result;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            for (int i = offsets.length - 1; i >= 0 && result.size() < limit; i--) {
+                raf.seek(offsets[i] + 4L);
+                ChatRecord record = decode(raf);
+                if (record.getTimestamp() < from) {
+                    break;
+                }
+                if (record.getTimestamp() <= to) {
+                    result.add(record);
+                }
+            }
+        }
+        return result;
+    }
+    
+    // ── Accessors ──
+    
+    File getFile() {
+        return file;
+    }
+    
+    File getIndexFile() {
+        return indexFile;
+    }
+    
+    LocalDate getDay() {
+        return day;
+    }
+    
+    int getSize() {
+        return size;
+    }
+    
+    /** Growable primitive int array for posting lists. */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+        
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+        
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+        
+        /** Values present in both; both must be ascending. */
+        static int[] intersect(int[] a, IntList b) {
+            int[] out = new int[Math.min(a.length, b.size)];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < a.length && j < b.size) {
+                if (a[i] < b.values[j]) {
+                    i++;
+                } else if (a[i] > b.values[j]) {
+                    j++;
+                } else {
+                    out[n++] = a[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(out, n);
+        }
+        
+        void writeDeltas(DataOutput out) throws IOException {
+            writeVarInt(out, size);
+            int previous = 0;
+            for (int i = 0; i < size; i++) {
+                writeVarInt(out, values[i] - previous);
+                previous = values[i];
+            }
+        }
+        
+        void readDeltas(DataInput in) throws IOException {
+            int n = readVarInt(in);
+            values = new int[Math.max(4, n)];
+            int previous = 0;
+            for (int i = 0; i < n; i++) {
+                previous += readVarInt(in);
+                values[i] = previous;
+            }
+            size = n;
+        }
+        
+        private static void writeVarInt(DataOutput out, int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+        
+        private static int readVarInt(DataInput in) throws IOException {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = in.readByte();
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+}
@@ -3,18 +3,28 @@ package com.kingdomcraft.staffcommands.commands;
 import com.kingdomcraft.staffcommands.managers.StaffAuditManager;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
+import org.bukkit.plugin.java.JavaPlugin;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class AuditCommand implements CommandExecutor {
     
+    private static final int RECENT_LIMIT = 50;
+    private static final int PLAYER_LIMIT = 100;
+    // How far back /audit <player> looks when no range is given
+    private static final long DEFAULT_PLAYER_RANGE = TimeUnit.DAYS.toMillis(30);
+    
+    private final JavaPlugin plugin;
     private final StaffAuditManager auditManager;
     
-    public AuditCommand(StaffAuditManager auditManager) {
+    public AuditCommand(JavaPlugin plugin, StaffAuditManager auditManager) {
+        this.plugin = plugin;
         this.auditManager = auditManager;
     }
     
@@ -27,22 +37,41 @@ public class AuditCommand implements CommandExecutor {
         
         Player staff = (Player) sender;
         
-        List<StaffAuditManager.AuditEntry> entries;
-        String targetName = args.length > 0 ? args[0] : null;
+        String targetName = args.length > 0 && !args[0].equalsIgnoreCase("all") ? args[0] : null;
+        long since = -1;
         
-        if (targetName != null) {
-            entries = auditManager.getAuditLogForPlayer(targetName);
-        } else {
-            entries = auditManager.getAuditLog();
-            // Limit to last 50 for performance
-            if (entries.size() > 50) {
-                entries = entries.subList(entries.size() - 50, entries.size());
+        if (args.length > 1) {
+            long duration = Durations.parse(args[1]);
+            if (duration <= 0) {
+                staff.sendMessage(Component.text("Invalid time range! Use e.g. 30m, 12h or 7d", NamedTextColor.RED));
+                return true;
             }
+            since = System.currentTimeMillis() - duration;
+        } else if (targetName != null) {
+            // Without a range only recent entries are searched, so the archives aren't read
+            since = System.currentTimeMillis() - DEFAULT_PLAYER_RANGE;
         }
         
+        int limit = targetName != null ? PLAYER_LIMIT : RECENT_LIMIT;
+        long from = since;
+        // Reading segments (and archives for long ranges) is disk I/O: do it off the main thread
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            List<StaffAuditManager.AuditEntry> entries = from >= 0
+                ? auditManager.getAuditLogBetween(targetName, from, Long.MAX_VALUE, limit)
+                : auditManager.getRecentEntries(limit);
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                if (staff.isOnline()) {
+                    showEntries(staff, targetName, entries);
+                }
+            });
+        });
+        return true;
+    }
+    
+    private void showEntries(Player staff, String targetName, List<StaffAuditManager.AuditEntry> entries) {
         if (entries.isEmpty()) {
             staff.sendMessage(Component.text("No audit log entries found", NamedTextColor.GRAY));
-            return true;
+            return;
         }
         
         staff.sendMessage(Component.text("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━", NamedTextColor.DARK_GRAY));
@@ -71,7 +100,5 @@ public class AuditCommand implements CommandExecutor {
         }
         
         staff.sendMessage(Component.text("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━", NamedTextColor.DARK_GRAY));
-        
-        return true;
     }
 }
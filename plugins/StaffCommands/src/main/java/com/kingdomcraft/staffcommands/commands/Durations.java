@@ -0,0 +1,33 @@
+package com.kingdomcraft.staffcommands.commands;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time range arguments shared by the staff commands.
+ */
+final class Durations {
+    
+    private Durations() {
+    }
+    
+    /**
+     * Parses durations like 30m, 12h or 7d into milliseconds. Returns -1 if invalid.
+     */
+    static long parse(String input) {
+        if (input.length() < 2) {
+            return -1;
+        }
+        long amount;
+        try {
+            amount = Long.parseLong(input.substring(0, input.length() - 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        return switch (Character.toLowerCase(input.charAt(input.length() - 1))) {
+            case 'm' -> TimeUnit.MINUTES.toMillis(amount);
+            case 'h' -> TimeUnit.HOURS.toMillis(amount);
+            case 'd' -> TimeUnit.DAYS.toMillis(amount);
+            default -> -1;
+        };
+    }
+}
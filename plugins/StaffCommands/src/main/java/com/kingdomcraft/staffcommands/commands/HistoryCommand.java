@@ -1,5 +1,7 @@
 package com.kingdomcraft.staffcommands.commands;
 
+import com.kingdomcraft.staffcommands.chatlog.ChatLog;
+import com.kingdomcraft.staffcommands.chatlog.ChatRecord;
 import com.kingdomcraft.staffcommands.managers.ChatHistoryManager;
 import com.kingdomcraft.staffcommands.managers.StaffAuditManager;
 import net.kyori.adventure.text.Component;
@@ -10,17 +12,31 @@ import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.java.JavaPlugin;
 
 import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
 
-public class HistoryCommand implements CommandExecutor {
+public class HistoryCommand implements CommandExecutor, Listener {
     
+    private static final int PAGE_SIZE = 10;
+    private static final int MAX_SEARCH_RESULTS = 500;
+    private static final long DEFAULT_SEARCH_RANGE = TimeUnit.DAYS.toMillis(7);
+    // How far back /history <player> looks on disk when nothing is in memory (e.g. after a restart)
+    private static final long DISK_FALLBACK_RANGE = TimeUnit.DAYS.toMillis(30);
+    
+    private final JavaPlugin plugin;
     private final ChatHistoryManager chatHistoryManager;
     private final StaffAuditManager auditManager;
+    // Last search per online staff member, for /history page
+    private final Map<UUID, SearchResults> lastSearch = new HashMap<>();
     
-    public HistoryCommand(ChatHistoryManager chatHistoryManager, StaffAuditManager auditManager) {
+    public HistoryCommand(JavaPlugin plugin, ChatHistoryManager chatHistoryManager, StaffAuditManager auditManager) {
+        this.plugin = plugin;
         this.chatHistoryManager = chatHistoryManager;
         this.auditManager = auditManager;
     }
@@ -36,16 +52,25 @@ public class HistoryCommand implements CommandExecutor {
         
         if (args.length == 0) {
             staff.sendMessage(Component.text("Usage: /history <player> [lines]", NamedTextColor.RED));
+            staff.sendMessage(Component.text("       /history search <word> [player] [since, e.g. 7d]", NamedTextColor.RED));
+            staff.sendMessage(Component.text("       /history page <n>", NamedTextColor.RED));
             return true;
         }
         
+        if (args[0].equalsIgnoreCase("search")) {
+            return search(staff, args);
+        }
+        if (args[0].equalsIgnoreCase("page")) {
+            return page(staff, args);
+        }
+        
         OfflinePlayer target = Bukkit.getOfflinePlayer(args[0]);
         int lines = 20;
         
         if (args.length > 1) {
             try {
                 lines = Integer.parseInt(args[1]);
-                lines = Math.min(lines, 100); // Max 100 lines
+                lines = Math.min(lines, chatHistoryManager.getCapacity());
             } catch (NumberFormatException e) {
                 staff.sendMessage(Component.text("Invalid number!", NamedTextColor.RED));
                 return true;
@@ -55,10 +80,35 @@ public class HistoryCommand implements CommandExecutor {
         List<ChatHistoryManager.ChatMessage> history = 
             chatHistoryManager.getHistory(target.getUniqueId(), lines);
         
+        if (history.isEmpty() && chatHistoryManager.getChatLog() != null) {
+            // Nothing in memory — look in the persistent log
+            int limit = lines;
+            ChatLog chatLog = chatHistoryManager.getChatLog();
+            long from = System.currentTimeMillis() - DISK_FALLBACK_RANGE;
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+                List<ChatRecord> records = chatLog.forPlayer(target.getUniqueId(), from, limit);
+                List<ChatHistoryManager.ChatMessage> fromDisk = new ArrayList<>();
+                for (int i = records.size() - 1; i >= 0; i--) {
+                    fromDisk.add(new ChatHistoryManager.ChatMessage(records.get(i).getMessage(), records.get(i).getTimestamp()));
+                }
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    if (staff.isOnline()) {
+                        showHistory(staff, target, fromDisk, "MM-dd HH:mm:ss");
+                    }
+                });
+            });
+            return true;
+        }
+        
+        showHistory(staff, target, history, "HH:mm:ss");
+        return true;
+    }
+    
+    private void showHistory(Player staff, OfflinePlayer target, List<ChatHistoryManager.ChatMessage> history, String timeFormat) {
         if (history.isEmpty()) {
             staff.sendMessage(Component.text("No chat history found for ", NamedTextColor.GRAY)
                 .append(Component.text(target.getName(), NamedTextColor.GOLD)));
-            return true;
+            return;
         }
         
         staff.sendMessage(Component.text("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━", NamedTextColor.DARK_GRAY));
@@ -67,7 +117,7 @@ public class HistoryCommand implements CommandExecutor {
             .append(Component.text(" (" + history.size() + " messages)", NamedTextColor.GRAY)));
         staff.sendMessage(Component.text("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━", NamedTextColor.DARK_GRAY));
         
-        SimpleDateFormat sdf = new SimpleDateFormat("HH:mm:ss");
+        SimpleDateFormat sdf = new SimpleDateFormat(timeFormat);
         for (ChatHistoryManager.ChatMessage msg : history) {
             String time = sdf.format(new Date(msg.getTimestamp()));
             staff.sendMessage(Component.text("[" + time + "] ", NamedTextColor.GRAY)
@@ -78,7 +128,112 @@ public class HistoryCommand implements CommandExecutor {
         
         auditManager.logAction(staff, "HISTORY", target.getName(), 
             "Viewed " + history.size() + " chat messages");
+    }
+    
+    // ── Search ──
+    
+    private boolean search(Player staff, String[] args) {
+        ChatLog chatLog = chatHistoryManager.getChatLog();
+        if (chatLog == null) {
+            staff.sendMessage(Component.text("The chat log is disabled.", NamedTextColor.RED));
+            return true;
+        }
+        if (args.length < 2) {
+            staff.sendMessage(Component.text("Usage: /history search <word> [player] [since, e.g. 7d]", NamedTextColor.RED));
+            return true;
+        }
+        
+        String word = args[1];
+        if (!ChatLog.isSearchable(word)) {
+            staff.sendMessage(Component.text("Search for a word of at least " + ChatLog.MIN_WORD_LENGTH
+                + " letters or digits.", NamedTextColor.RED));
+            return true;
+        }
+        OfflinePlayer target = null;
+        long since = System.currentTimeMillis() - DEFAULT_SEARCH_RANGE;
+        for (int i = 2; i < args.length; i++) {
+            long duration = Durations.parse(args[i]);
+            if (duration > 0) {
+                since = System.currentTimeMillis() - duration;
+            } else {
+                target = Bukkit.getOfflinePlayer(args[i]);
+            }
+        }
         
+        String description = "\"" + word + "\"" + (target != null ? " from " + target.getName() : "");
+        UUID targetId = target != null ? target.getUniqueId() : null;
+        String targetName = target != null ? target.getName() : "all";
+        long from = since;
+        staff.sendMessage(Component.text("Searching chat for " + description + "...", NamedTextColor.GRAY));
+        
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            List<ChatRecord> results = chatLog.search(word, targetId, from, Long.MAX_VALUE, MAX_SEARCH_RESULTS);
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                if (!staff.isOnline()) {
+                    return;
+                }
+                lastSearch.put(staff.getUniqueId(), new SearchResults(description, results));
+                auditManager.logAction(staff, "HISTORY_SEARCH", targetName,
+                    "Searched chat for " + description + " (" + results.size() + " results)");
+                showPage(staff, 1);
+            });
+        });
+        return true;
+    }
+    
+    private boolean page(Player staff, String[] args) {
+        int page;
+        try {
+            page = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        } catch (NumberFormatException e) {
+            staff.sendMessage(Component.text("Invalid number!", NamedTextColor.RED));
+            return true;
+        }
+        if (!lastSearch.containsKey(staff.getUniqueId())) {
+            staff.sendMessage(Component.text("No search to page through. Use /history search first.", NamedTextColor.RED));
+            return true;
+        }
+        showPage(staff, page);
         return true;
     }
+    
+    private void showPage(Player staff, int page) {
+        SearchResults search = lastSearch.get(staff.getUniqueId());
+        List<ChatRecord> results = search.results();
+        if (results.isEmpty()) {
+            staff.sendMessage(Component.text("No messages found for " + search.description(), NamedTextColor.GRAY));
+            return;
+        }
+        
+        int pages = (results.size() + PAGE_SIZE - 1) / PAGE_SIZE;
+        page = Math.max(1, Math.min(page, pages));
+        
+        staff.sendMessage(Component.text("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━", NamedTextColor.DARK_GRAY));
+        staff.sendMessage(Component.text("Chat Search: ", NamedTextColor.GOLD)
+            .append(Component.text(search.description(), NamedTextColor.WHITE))
+            .append(Component.text(" (" + results.size() + (results.size() >= MAX_SEARCH_RESULTS ? "+" : "")
+                + " results, page " + page + "/" + pages + ")", NamedTextColor.GRAY)));
+        staff.sendMessage(Component.text("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━", NamedTextColor.DARK_GRAY));
+        
+        SimpleDateFormat sdf = new SimpleDateFormat("MM-dd HH:mm:ss");
+        int end = Math.min(results.size(), page * PAGE_SIZE);
+        for (int i = (page - 1) * PAGE_SIZE; i < end; i++) {
+            ChatRecord record = results.get(i);
+            staff.sendMessage(Component.text("[" + sdf.format(new Date(record.getTimestamp())) + "] ", NamedTextColor.GRAY)
+                .append(Component.text(record.getPlayerName() + ": ", NamedTextColor.YELLOW))
+                .append(Component.text(record.getMessage(), NamedTextColor.WHITE)));
+        }
+        
+        if (page < pages) {
+            staff.sendMessage(Component.text("/history page " + (page + 1) + " for more", NamedTextColor.DARK_GRAY));
+        }
+        staff.sendMessage(Component.text("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━", NamedTextColor.DARK_GRAY));
+    }
+    
+    @EventHandler
+    public void onQuit(PlayerQuitEvent event) {
+        lastSearch.remove(event.getPlayer().getUniqueId());
+    }
+    
+    private record SearchResults(String description, List<ChatRecord> results) {}
 }
@@ -1,41 +1,148 @@
 package com.kingdomcraft.staffcommands.managers;
 
+import com.kingdomcraft.staffcommands.chatlog.ChatLog;
+import com.kingdomcraft.staffcommands.chatlog.ChatRecord;
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
 
+import java.io.File;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+/**
+ * Recent chat per player. Messages are logged from async chat threads and read on the
+ * main thread, so each player has a fixed-size ring buffer that can be written and
+ * read without locks. History of players who have been offline for a while is evicted.
+ *
+ * Every message is also written to the persistent, searchable {@link ChatLog}.
+ */
 public class ChatHistoryManager {
     
     private final JavaPlugin plugin;
-    private final Map<UUID, LinkedList<ChatMessage>> chatHistory = new HashMap<>();
-    private static final int MAX_HISTORY = 100;
+    private final Map<UUID, ChatRing> chatHistory = new ConcurrentHashMap<>();
+    private final int capacity;
+    private final long idleMillis;
+    private final ChatLog chatLog;
+    private BukkitTask evictionTask;
     
     public ChatHistoryManager(JavaPlugin plugin) {
         this.plugin = plugin;
+        this.capacity = Math.max(1, plugin.getConfig().getInt("chat-history.size", 100));
+        this.idleMillis = TimeUnit.MINUTES.toMillis(plugin.getConfig().getLong("chat-history.offline-idle-minutes", 60));
+        this.chatLog = plugin.getConfig().getBoolean("chat-log.enabled", true)
+            ? new ChatLog(plugin, new File(plugin.getDataFolder(), "chat"), plugin.getConfig().getInt("chat-log.retention-days", 90))
+            : null;
+        startEviction();
     }
     
+    private void startEviction() {
+        if (idleMillis <= 0) {
+            return;
+        }
+        evictionTask = Bukkit.getScheduler().runTaskTimer(plugin, this::evictIdle, 20L * 60, 20L * 60);
+    }
+    
+    /** Drop history of offline players who haven't chatted within the idle period. */
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleMillis;
+        chatHistory.entrySet().removeIf(e -> e.getValue().lastWrite < cutoff && Bukkit.getPlayer(e.getKey()) == null);
+    }
+    
+    /** Safe to call from any thread. */
     public void logMessage(Player player, String message) {
-        UUID uuid = player.getUniqueId();
-        chatHistory.putIfAbsent(uuid, new LinkedList<>());
-        
-        LinkedList<ChatMessage> history = chatHistory.get(uuid);
-        history.add(new ChatMessage(message, System.currentTimeMillis()));
-        
-        // Keep only last MAX_HISTORY messages
-        if (history.size() > MAX_HISTORY) {
-            history.removeFirst();
+        long now = System.currentTimeMillis();
+        chatHistory.computeIfAbsent(player.getUniqueId(), k -> new ChatRing(capacity)).add(message, now);
+        if (chatLog != null) {
+            chatLog.append(new ChatRecord(player.getUniqueId(), player.getName(), message, now));
         }
     }
     
+    /** Up to {@code lines} most recent messages, oldest first. */
     public List<ChatMessage> getHistory(UUID uuid, int lines) {
-        LinkedList<ChatMessage> history = chatHistory.get(uuid);
-        if (history == null || history.isEmpty()) {
+        ChatRing ring = chatHistory.get(uuid);
+        if (ring == null) {
             return Collections.emptyList();
         }
+        return ring.latest(lines);
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    /** The persistent chat log, or null if disabled. */
+    public ChatLog getChatLog() {
+        return chatLog;
+    }
+    
+    public void close() {
+        if (evictionTask != null) {
+            evictionTask.cancel();
+            evictionTask = null;
+        }
+        if (chatLog != null) {
+            chatLog.close();
+        }
+    }
+    
+    /**
+     * Fixed-size ring of one player's messages.
+     *
+     * A writer claims a sequence number from the cursor (the only contended step), fills
+     * the slot, then publishes the sequence in {@code published}. While a slot is being
+     * filled it is marked -1, and readers skip any slot whose published sequence isn't
+     * the one they expect before and after reading it, so they never return a half-written
+     * or overwritten message.
+     */
+    private static final class ChatRing {
+        private final AtomicLong cursor = new AtomicLong();
+        private final AtomicLongArray published;
+        private final AtomicLongArray timestamps;
+        private final AtomicReferenceArray<String> messages;
+        private volatile long lastWrite = System.currentTimeMillis();
         
-        int start = Math.max(0, history.size() - lines);
-        return new ArrayList<>(history.subList(start, history.size()));
+        ChatRing(int capacity) {
+            published = new AtomicLongArray(capacity);
+            for (int i = 0; i < capacity; i++) {
+                published.set(i, -1);
+            }
+            timestamps = new AtomicLongArray(capacity);
+            messages = new AtomicReferenceArray<>(capacity);
+        }
+        
+        void add(String message, long timestamp) {
+            long seq = cursor.getAndIncrement();
+            int slot = (int) (seq % published.length());
+            published.set(slot, -1);
+            timestamps.set(slot, timestamp);
+            messages.set(slot, message);
+            published.set(slot, seq);
+            lastWrite = timestamp;
+        }
+        
+        List<ChatMessage> latest(int lines) {
+            long end = cursor.get();
+            long start = Math.max(0, end - Math.min(lines, published.length()));
+            List<ChatMessage> result = new ArrayList<>((int) (end - start));
+            for (long seq = start; seq < end; seq++) {
+                int slot = (int) (seq % published.length());
+                if (published.get(slot) != seq) {
+                    continue;
+                }
+                long timestamp = timestamps.get(slot);
+                String message = messages.get(slot);
+                if (published.get(slot) == seq) {
+                    result.add(new ChatMessage(message, timestamp));
+                }
+            }
+            return result;
+        }
     }
     
     public static class ChatMessage {
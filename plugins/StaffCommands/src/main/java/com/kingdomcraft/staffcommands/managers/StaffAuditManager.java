@@ -1,27 +1,62 @@
 package com.kingdomcraft.staffcommands.managers;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.kingdomcraft.staffcommands.audit.AuditLog;
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.io.*;
-import java.lang.reflect.Type;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Staff action log. Entries go straight to the segmented on-disk {@link AuditLog};
+ * only the most recent ones are kept in memory for a plain /audit. Old entries are
+ * compacted into monthly archives in the background.
+ */
 public class StaffAuditManager {
     
     private final JavaPlugin plugin;
-    private final List<AuditEntry> auditLog = new ArrayList<>();
-    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
-    private final File auditFile;
+    private final AuditLog auditLog;
+    private final Deque<AuditEntry> recent = new ArrayDeque<>();
+    private final int recentCapacity;
+    private final Gson gson = new Gson();
+    private final File legacyFile;
+    private BukkitTask compactionTask;
     
     public StaffAuditManager(JavaPlugin plugin) {
         this.plugin = plugin;
-        this.auditFile = new File(plugin.getDataFolder(), "audit-log.json");
-        loadFromFile();
+        this.auditLog = new AuditLog(plugin, new File(plugin.getDataFolder(), "audit"),
+            plugin.getConfig().getLong("audit.segment-size-kb", 4096) * 1024L);
+        this.recentCapacity = Math.max(1, plugin.getConfig().getInt("audit.memory-tail", 200));
+        this.legacyFile = new File(plugin.getDataFolder(), "audit-log.json");
+        importLegacyFile();
+        recent.addAll(auditLog.query(null, Long.MIN_VALUE, Long.MAX_VALUE, recentCapacity));
+        startCompaction();
+    }
+    
+    /**
+     * Periodically moves entries past the hot retention period into monthly archives.
+     */
+    private void startCompaction() {
+        long hotMillis = TimeUnit.DAYS.toMillis(plugin.getConfig().getLong("audit.hot-retention-days", 30));
+        int archiveMonths = plugin.getConfig().getInt("audit.archive-retention-months", 0);
+        long intervalMinutes = plugin.getConfig().getLong("audit.compaction-interval-minutes", 60);
+        if (intervalMinutes <= 0) {
+            return;
+        }
+        
+        long intervalTicks = intervalMinutes * 60L * 20L;
+        compactionTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin,
+            () -> auditLog.compact(hotMillis, archiveMonths), 20L * 60, intervalTicks);
     }
     
     public void logAction(Player staff, String action, String target, String details) {
@@ -33,50 +68,92 @@ public class StaffAuditManager {
             details,
             System.currentTimeMillis()
         );
-        auditLog.add(entry);
+        auditLog.append(entry);
         
-        // Auto-save every 10 entries
-        if (auditLog.size() % 10 == 0) {
-            saveToFile();
+        synchronized (recent) {
+            recent.addLast(entry);
+            if (recent.size() > recentCapacity) {
+                recent.removeFirst();
+            }
         }
     }
     
-    public List<AuditEntry> getAuditLog() {
-        return new ArrayList<>(auditLog);
-    }
-    
-    public List<AuditEntry> getAuditLogForPlayer(String playerName) {
-        List<AuditEntry> filtered = new ArrayList<>();
-        for (AuditEntry entry : auditLog) {
-            if (entry.getStaffName().equalsIgnoreCase(playerName) || 
-                entry.getTarget().equalsIgnoreCase(playerName)) {
-                filtered.add(entry);
+    /**
+     * The newest {@code limit} entries, oldest first.
+     */
+    public List<AuditEntry> getRecentEntries(int limit) {
+        synchronized (recent) {
+            if (limit <= recent.size()) {
+                List<AuditEntry> all = new ArrayList<>(recent);
+                return all.subList(all.size() - limit, all.size());
             }
         }
-        return filtered;
+        return auditLog.query(null, Long.MIN_VALUE, Long.MAX_VALUE, limit);
     }
     
-    public void saveToFile() {
-        try (Writer writer = new FileWriter(auditFile)) {
-            gson.toJson(auditLog, writer);
-        } catch (IOException e) {
-            plugin.getLogger().severe("Failed to save audit log: " + e.getMessage());
+    /**
+     * The newest {@code limit} entries in [from, to], optionally for one player only.
+     */
+    public List<AuditEntry> getAuditLogBetween(String playerName, long from, long to, int limit) {
+        return auditLog.query(playerName, from, to, limit);
+    }
+    
+    public void close() {
+        if (compactionTask != null) {
+            compactionTask.cancel();
+            compactionTask = null;
         }
+        auditLog.close();
     }
     
-    private void loadFromFile() {
-        if (!auditFile.exists()) {
+    /**
+     * One-time import of the old audit-log.json into the segmented log.
+     * Streams the file one entry at a time; unknown fields are ignored and an entry
+     * that fails to parse is skipped and counted.
+     */
+    private void importLegacyFile() {
+        if (!legacyFile.exists()) {
+            return;
+        }
+        if (!auditLog.isEmpty()) {
+            plugin.getLogger().warning("audit-log.json found but the audit log already has entries; not importing it.");
             return;
         }
         
-        try (Reader reader = new FileReader(auditFile)) {
-            Type listType = new TypeToken<ArrayList<AuditEntry>>(){}.getType();
-            List<AuditEntry> loaded = gson.fromJson(reader, listType);
-            if (loaded != null) {
-                auditLog.addAll(loaded);
+        int imported = 0;
+        int failed = 0;
+        if (legacyFile.length() > 0) {
+            try (JsonReader reader = new JsonReader(new BufferedReader(new FileReader(legacyFile)))) {
+                if (reader.peek() != JsonToken.NULL) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        JsonElement element = JsonParser.parseReader(reader);
+                        try {
+                            AuditEntry entry = gson.fromJson(element, AuditEntry.class);
+                            if (entry == null) {
+                                throw new JsonParseException("null entry");
+                            }
+                            auditLog.append(entry);
+                            imported++;
+                        } catch (Exception e) {
+                            failed++;
+                            plugin.getLogger().warning("Skipping unreadable audit entry #" + (imported + failed)
+                                + ": " + e.getMessage());
+                        }
+                    }
+                    reader.endArray();
+                }
+            } catch (Exception e) {
+                plugin.getLogger().severe("Failed to import audit log after " + imported
+                    + " entries: " + e.getMessage());
             }
-        } catch (IOException e) {
-            plugin.getLogger().severe("Failed to load audit log: " + e.getMessage());
+        }
+        
+        plugin.getLogger().info("Imported " + imported + " audit entries from audit-log.json"
+            + (failed > 0 ? " (" + failed + " skipped)" : "") + ".");
+        File backup = new File(plugin.getDataFolder(), "audit-log.json.migrated");
+        if (!legacyFile.renameTo(backup)) {
+            plugin.getLogger().warning("Could not rename audit-log.json after import.");
         }
     }
     
@@ -102,6 +179,10 @@ public class StaffAuditManager {
             return staffName;
         }
         
+        public String getStaffUuid() {
+            return staffUuid;
+        }
+        
         public String getAction() {
             return action;
         }